@@ -0,0 +1,39 @@
+#!/usr/bin/env bash
+#
+# Builds the application with Spring AOT (fast-startup Maven profile) and creates a class data sharing
+# archive from a training run that stops right after the application context has been refreshed.
+#
+# Usage: scripts/build-cds-archive.sh
+# Then start the application with the command printed at the end.
+
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+./mvnw -B -q -Pfast-startup -DskipTests clean package
+
+APP_DIR=target/cds
+rm -rf "$APP_DIR"
+mkdir -p "$APP_DIR/lib"
+unzip -q target/hms-*.war -d "$APP_DIR/war"
+
+# CDS only archives classes loaded from JAR files, so repackage the application classes as a plain JAR
+jar --create --file "$APP_DIR/application.jar" -C "$APP_DIR/war/WEB-INF/classes" .
+cp "$APP_DIR"/war/WEB-INF/lib/*.jar "$APP_DIR"/war/WEB-INF/lib-provided/*.jar "$APP_DIR/lib/"
+rm -rf "$APP_DIR/war"
+
+# The class path must be identical when dumping and when using the archive, so list the JARs explicitly
+CLASS_PATH="$APP_DIR/application.jar"
+for jar in $(ls "$APP_DIR"/lib/*.jar | sort); do
+    CLASS_PATH="$CLASS_PATH:$jar"
+done
+echo "$CLASS_PATH" > "$APP_DIR/classpath.txt"
+
+java -XX:ArchiveClassesAtExit="$APP_DIR/application.jsa" \
+    -Dspring.aot.enabled=true \
+    -Dspring.context.exit=onRefresh \
+    -cp "$CLASS_PATH" com.hms.HmsApplication --spring.profiles.active=fast-startup
+
+echo
+echo "CDS archive written to $APP_DIR/application.jsa. Start the application with:"
+echo "  java -XX:SharedArchiveFile=$APP_DIR/application.jsa -Dspring.aot.enabled=true \\"
+echo "      -cp \"\$(cat $APP_DIR/classpath.txt)\" com.hms.HmsApplication --spring.profiles.active=fast-startup"
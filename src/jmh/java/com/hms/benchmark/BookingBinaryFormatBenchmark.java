@@ -0,0 +1,110 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.hms.config.BinaryFormatConfig;
+import com.hms.model.Booking;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Payload size and encode/decode throughput of a list of bookings as JSON (with the {@code @JsonFormat} date
+ * patterns) versus Smile and CBOR (with epoch dates), using the same ObjectMapper configuration as the converters.
+ * The {@code payloadBytes} counter of {@code reportPayloadSize} is the encoded size of the list.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingBinaryFormatBenchmark {
+    @Param({"json", "smile", "cbor"})
+    public String format;
+
+    @Param({"1000"})
+    public int bookingCount;
+
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private List<Booking> bookings;
+    private byte[] payload;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PayloadSize {
+        public long payloadBytes;
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper objectMapper = switch (format) {
+            case "json" -> Jackson2ObjectMapperBuilder.json().build();
+            case "smile" -> BinaryFormatConfig.binaryObjectMapper(Jackson2ObjectMapperBuilder.json(), new SmileFactory());
+            case "cbor" -> BinaryFormatConfig.binaryObjectMapper(Jackson2ObjectMapperBuilder.json(), new CBORFactory());
+            default -> throw new IllegalArgumentException("Unknown format: " + format);
+        };
+        var listType = objectMapper.getTypeFactory().constructCollectionType(List.class, Booking.class);
+        writer = objectMapper.writerFor(listType);
+        reader = objectMapper.readerFor(listType);
+
+        bookings = BookingFixtures.newBookings(new SplittableRandom(42), bookingCount);
+        long id = 1;
+        for (Booking booking : bookings) {
+            booking.setId(id++);
+            booking.setVersion(0L);
+        }
+        payload = writer.writeValueAsBytes(bookings);
+    }
+
+    @Benchmark
+    public byte[] encode() throws Exception {
+        return writer.writeValueAsBytes(bookings);
+    }
+
+    @Benchmark
+    public List<Booking> decode() throws Exception {
+        return reader.readValue(payload);
+    }
+
+    @Benchmark
+    public byte[] reportPayloadSize(PayloadSize payloadSize) {
+        payloadSize.payloadBytes = payload.length;
+        return payload;
+    }
+}
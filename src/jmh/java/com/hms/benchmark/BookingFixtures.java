@@ -0,0 +1,143 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.benchmark;
+
+import com.hms.HmsApplication;
+import com.hms.model.BatchItemResult;
+import com.hms.model.Booking;
+import com.hms.model.BookingBatchResult;
+import com.hms.service.BookingService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Shared helpers for building bookings and application contexts in benchmarks.
+ */
+final class BookingFixtures {
+    private static final String[] ROOM_TYPES = {"Standard", "Deluxe", "Suite"};
+    private static final String[] NAMES = {"John Doe", "Jane Doe", "Alex Smith", "Maria Garcia", "Wei Zhang"};
+
+    private BookingFixtures() {
+    }
+
+    /**
+     * Starts the application without a web server against a private in-memory database.
+     * Every room type the fixtures book is given unlimited capacity, so that
+     * seeded and benchmarked bookings are never rejected for lack of rooms.
+     *
+     * @param databaseName the name of the in-memory database.
+     * @param extraProperties additional properties in {@code key=value} form.
+     * @return the running application context.
+     */
+    static ConfigurableApplicationContext startApplication(String databaseName, String... extraProperties) {
+        return startApplication(WebApplicationType.NONE, databaseName, extraProperties);
+    }
+
+    /**
+     * Like {@link #startApplication(String, String...)}, but also starts the web layer on a random port.
+     *
+     * @param databaseName the name of the in-memory database.
+     * @param extraProperties additional properties in {@code key=value} form.
+     * @return the running web application context.
+     */
+    static ConfigurableApplicationContext startWebApplication(String databaseName, String... extraProperties) {
+        List<String> properties = new ArrayList<>(List.of(extraProperties));
+        properties.add("server.port=0");
+        return startApplication(WebApplicationType.SERVLET, databaseName, properties.toArray(new String[0]));
+    }
+
+    private static ConfigurableApplicationContext startApplication(WebApplicationType webApplicationType,
+                                                                   String databaseName, String... extraProperties) {
+        List<String> properties = new ArrayList<>(List.of(
+                "spring.datasource.url=jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "spring.jpa.show-sql=false",
+                "spring.h2.console.enabled=false",
+                "logging.level.root=WARN"
+        ));
+        for (String roomType : ROOM_TYPES) {
+            properties.add("hms.inventory.capacity." + roomType + "=" + Integer.MAX_VALUE);
+        }
+        properties.addAll(List.of(extraProperties));
+        // Passed as command line arguments: default properties would lose to application.properties
+        return new SpringApplicationBuilder(HmsApplication.class)
+                .web(webApplicationType)
+                .logStartupInfo(false)
+                .run(properties.stream().map(property -> "--" + property).toArray(String[]::new));
+    }
+
+    /**
+     * Creates a plausible booking with a stay within the next year.
+     * @param random the source of randomness.
+     * @return a new, unsaved booking.
+     */
+    static Booking newBooking(SplittableRandom random) {
+        LocalDate checkIn = LocalDate.now().plusDays(random.nextInt(365));
+        LocalDate checkOut = checkIn.plusDays(1 + random.nextInt(7));
+        Booking booking = new Booking();
+        booking.setCustomerName(NAMES[random.nextInt(NAMES.length)]);
+        booking.setRoomType(ROOM_TYPES[random.nextInt(ROOM_TYPES.length)]);
+        booking.setCheckInDate(Date.from(checkIn.atStartOfDay(ZoneId.systemDefault()).toInstant()));
+        booking.setCheckOutDate(Date.from(checkOut.atStartOfDay(ZoneId.systemDefault()).toInstant()));
+        booking.setTotalPrice(100 + random.nextInt(900));
+        return booking;
+    }
+
+    /**
+     * Creates a list of new bookings.
+     * @param random the source of randomness.
+     * @param count the number of bookings.
+     * @return the unsaved bookings.
+     */
+    static List<Booking> newBookings(SplittableRandom random, int count) {
+        List<Booking> bookings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            bookings.add(newBooking(random));
+        }
+        return bookings;
+    }
+
+    /**
+     * Saves bookings through the batch API and returns the IDs they were given.
+     * Fails if any booking is not created, since a benchmark over a partly seeded table measures the wrong thing.
+     *
+     * @param bookingService the service to save with.
+     * @param bookings the bookings to save, at most the configured batch size.
+     * @return the IDs of the saved bookings, in request order.
+     * @throws IllegalStateException if any booking was rejected or failed.
+     */
+    static long[] seed(BookingService bookingService, List<Booking> bookings) {
+        BookingBatchResult result = bookingService.saveBookings(bookings);
+        if (result.getCreated() != bookings.size()) {
+            throw new IllegalStateException("Seeded only " + result.getCreated() + " of " + bookings.size()
+                    + " bookings: " + result.getResults().stream()
+                    .filter(item -> item.getStatus() != BatchItemResult.Status.CREATED)
+                    .findFirst()
+                    .map(BatchItemResult::getErrors)
+                    .orElse(null));
+        }
+        return result.getResults().stream().mapToLong(BatchItemResult::getId).toArray();
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.hms.model.Booking;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of converting bookings to and from JSON, including the {@code @JsonFormat} date patterns.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingJsonBenchmark {
+    private ObjectWriter bookingWriter;
+    private ObjectWriter listWriter;
+    private ObjectReader bookingReader;
+    private Booking booking;
+    private List<Booking> bookings;
+    private String bookingJson;
+
+    @Setup
+    public void setUp() throws Exception {
+        // Same defaults as the ObjectMapper Spring MVC uses
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        bookingWriter = objectMapper.writerFor(Booking.class);
+        listWriter = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, Booking.class));
+        bookingReader = objectMapper.readerFor(Booking.class);
+
+        SplittableRandom random = new SplittableRandom(42);
+        booking = BookingFixtures.newBooking(random);
+        booking.setId(1L);
+        bookings = BookingFixtures.newBookings(random, 100);
+        bookingJson = bookingWriter.writeValueAsString(booking);
+    }
+
+    @Benchmark
+    public String serializeBooking() throws Exception {
+        return bookingWriter.writeValueAsString(booking);
+    }
+
+    @Benchmark
+    public byte[] serializeHundredBookings() throws Exception {
+        return listWriter.writeValueAsBytes(bookings);
+    }
+
+    @Benchmark
+    public Booking deserializeBooking() throws Exception {
+        return bookingReader.readValue(bookingJson);
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.benchmark;
+
+import com.hms.model.Booking;
+import com.hms.model.BookingPage;
+import com.hms.model.BookingSearchCriteria;
+import com.hms.model.BookingSummary;
+import com.hms.service.BookingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search latency as the table grows. With the secondary indexes in place the time per query
+ * should grow far slower than the table size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BookingSearchBenchmark {
+    private static final int SEED_CHUNK = 5_000;
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyz";
+
+    @Param({"10000", "100000", "1000000"})
+    public int tableSize;
+
+    private ConfigurableApplicationContext context;
+    private BookingService bookingService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BookingFixtures.startApplication("search_benchmark_" + tableSize);
+        bookingService = context.getBean(BookingService.class);
+
+        SplittableRandom random = new SplittableRandom(42);
+        for (int seeded = 0; seeded < tableSize; seeded += SEED_CHUNK) {
+            List<Booking> bookings = BookingFixtures.newBookings(random, Math.min(SEED_CHUNK, tableSize - seeded));
+            for (Booking booking : bookings) {
+                // Random names make a three-letter prefix match roughly one row in 17,576
+                booking.setCustomerName(randomWord(random, 8) + " " + randomWord(random, 6));
+            }
+            BookingFixtures.seed(bookingService, bookings);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BookingPage<BookingSummary> searchByNamePrefix() {
+        BookingSearchCriteria criteria = new BookingSearchCriteria();
+        criteria.setCustomerName(randomWord(new SplittableRandom(ThreadLocalRandom.current().nextLong()), 3).toUpperCase());
+        return bookingService.searchBookings(criteria);
+    }
+
+    @Benchmark
+    public BookingPage<BookingSummary> searchByRoomTypeAndCheckIn() {
+        LocalDate checkIn = LocalDate.now().plusDays(ThreadLocalRandom.current().nextInt(365));
+        BookingSearchCriteria criteria = new BookingSearchCriteria();
+        criteria.setRoomType("Suite");
+        criteria.setCheckInFrom(checkIn);
+        criteria.setCheckInTo(checkIn);
+        return bookingService.searchBookings(criteria);
+    }
+
+    @Benchmark
+    public BookingPage<BookingSummary> searchByCheckOut() {
+        LocalDate checkOut = LocalDate.now().plusDays(1 + ThreadLocalRandom.current().nextInt(365));
+        BookingSearchCriteria criteria = new BookingSearchCriteria();
+        criteria.setCheckOutFrom(checkOut);
+        criteria.setCheckOutTo(checkOut);
+        return bookingService.searchBookings(criteria);
+    }
+
+    private static String randomWord(SplittableRandom random, int length) {
+        StringBuilder word = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            word.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+        }
+        return word.toString();
+    }
+}
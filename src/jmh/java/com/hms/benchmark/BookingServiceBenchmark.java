@@ -0,0 +1,123 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.benchmark;
+
+import com.hms.model.Booking;
+import com.hms.model.BookingFilter;
+import com.hms.model.BookingPage;
+import com.hms.repository.BookingRepository;
+import com.hms.service.BookingService;
+import com.hms.utils.CursorCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Booking service hot paths against embedded H2 at several table sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingServiceBenchmark {
+    private static final int SEED_CHUNK = 5_000;
+
+    @Param({"1000", "100000"})
+    public int tableSize;
+
+    private ConfigurableApplicationContext context;
+    private BookingService bookingService;
+    private BookingRepository bookingRepository;
+    private long[] seededIds;
+    private BookingFilter firstPage;
+    private BookingFilter lastPage;
+    private SplittableRandom random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BookingFixtures.startApplication("service_benchmark_" + tableSize);
+        bookingService = context.getBean(BookingService.class);
+        bookingRepository = context.getBean(BookingRepository.class);
+
+        random = new SplittableRandom(42);
+        // IDs come from a pooled sequence and need not be contiguous, so look up only IDs that were handed out
+        seededIds = new long[tableSize];
+        for (int seeded = 0; seeded < tableSize; seeded += SEED_CHUNK) {
+            long[] ids = BookingFixtures.seed(bookingService,
+                    BookingFixtures.newBookings(random, Math.min(SEED_CHUNK, tableSize - seeded)));
+            System.arraycopy(ids, 0, seededIds, seeded, ids.length);
+        }
+
+        firstPage = new BookingFilter();
+        lastPage = new BookingFilter();
+        // Keyset pagination should make the last page as cheap as the first
+        lastPage.setCursor(CursorCodec.encode(seededIds[Math.max(0, tableSize - 51)]));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Booking saveBooking() {
+        return bookingService.saveBooking(BookingFixtures.newBooking(random));
+    }
+
+    @Benchmark
+    public Booking getBookingById() {
+        return bookingService.getBookingById(randomId());
+    }
+
+    @Benchmark
+    public Optional<Booking> findByIdUncached() {
+        return bookingRepository.findById(randomId());
+    }
+
+    @Benchmark
+    public BookingPage<Booking> getAllBookingsFirstPage() {
+        return bookingService.getAllBookings(firstPage);
+    }
+
+    @Benchmark
+    public BookingPage<Booking> getAllBookingsLastPage() {
+        return bookingService.getAllBookings(lastPage);
+    }
+
+    private long randomId() {
+        return seededIds[ThreadLocalRandom.current().nextInt(seededIds.length)];
+    }
+}
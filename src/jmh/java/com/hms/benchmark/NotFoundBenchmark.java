@@ -0,0 +1,108 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.benchmark;
+
+import com.hms.exceptions.ResourceNotFoundException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Throughput of the 404 path, as hit by scanners probing unknown booking IDs.
+ * {@code lookupMissingBooking} runs the full Spring MVC stack including the exception handler, error body and
+ * rate-limited logging; the exception benchmarks isolate the cost of a stack trace at a realistic call depth.
+ * Run it against an earlier commit to compare with stack traces and per-request ERROR logging.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NotFoundBenchmark {
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BookingFixtures.startWebApplication("not_found_benchmark",
+                // Same as production: missing IDs are cached as misses and errors are logged at WARN
+                "logging.level.com.hms=WARN");
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public MvcResult lookupMissingBooking() throws Exception {
+        long id = 1_000_000 + ThreadLocalRandom.current().nextLong(1_000_000_000);
+        return mockMvc.perform(get("/bookings/{id}", id)).andReturn();
+    }
+
+    @State(Scope.Benchmark)
+    public static class CallStack {
+        @Param({"32", "128"})
+        public int depth;
+    }
+
+    @Benchmark
+    public Exception throwStackless(CallStack callStack) {
+        return throwAt(callStack.depth, false);
+    }
+
+    @Benchmark
+    public Exception throwWithStackTrace(CallStack callStack) {
+        return throwAt(callStack.depth, true);
+    }
+
+    private static Exception throwAt(int depth, boolean withStackTrace) {
+        if (depth > 0) {
+            return throwAt(depth - 1, withStackTrace);
+        }
+        try {
+            throw withStackTrace
+                    ? new RuntimeException("Booking not found with ID: 42")
+                    : new ResourceNotFoundException("Booking not found with ID: 42");
+        } catch (RuntimeException exception) {
+            return exception;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Builds and sends realistic booking API requests, remembering created booking IDs
+ * so that reads and updates target bookings that exist.
+ */
+final class BookingTraffic {
+    static final String[] ROOM_TYPES = {"Standard", "Standard", "Standard", "Deluxe", "Deluxe", "Suite"};
+    private static final String[] NAMES = {"John Doe", "Jane Doe", "Alex Smith", "Maria Garcia", "Wei Zhang", "Priya Patel"};
+    private static final int KNOWN_ID_CAPACITY = 1 << 16;
+
+    private final URI baseUri;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLongArray knownIds = new AtomicLongArray(KNOWN_ID_CAPACITY);
+    private final AtomicInteger knownIdCount = new AtomicInteger();
+
+    BookingTraffic(URI baseUri, HttpClient httpClient) {
+        this.baseUri = baseUri;
+        this.httpClient = httpClient;
+    }
+
+    /**
+     * Creates bookings through the batch endpoint so that reads have data to hit from the start.
+     * @param count the number of bookings to create.
+     * @param seed the random seed for the generated bookings.
+     */
+    void seed(int count, long seed) throws IOException, InterruptedException {
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int created = 0; created < count; created += 1000) {
+            StringBuilder body = new StringBuilder("[");
+            for (int i = 0; i < Math.min(1000, count - created); i++) {
+                if (i > 0) {
+                    body.append(',');
+                }
+                body.append(bookingJson(random));
+            }
+            body.append(']');
+            HttpResponse<String> response = httpClient.send(
+                    jsonRequest(baseUri.resolve("bookings/batch"), "POST", body.toString()),
+                    HttpResponse.BodyHandlers.ofString());
+            for (JsonNode result : objectMapper.readTree(response.body()).path("results")) {
+                if (result.hasNonNull("id")) {
+                    remember(result.get("id").asLong());
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends one request of the given kind asynchronously.
+     * @param operation the kind of request.
+     * @return the response status code once the request completes.
+     */
+    CompletableFuture<Integer> send(Operation operation) {
+        SplittableRandom random = new SplittableRandom(ThreadLocalRandom.current().nextLong());
+        HttpRequest request = switch (operation) {
+            case CREATE -> jsonRequest(baseUri.resolve("bookings"), "POST", bookingJson(random));
+            case GET -> HttpRequest.newBuilder(baseUri.resolve("bookings/" + randomKnownId())).GET().build();
+            case LIST -> HttpRequest.newBuilder(baseUri.resolve("bookings?limit=20")).GET().build();
+            case UPDATE -> jsonRequest(baseUri.resolve("bookings/" + randomKnownId()), "PUT", bookingJson(random));
+        };
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()).thenApply(response -> {
+            if (operation == Operation.CREATE && response.statusCode() == 200) {
+                rememberFrom(response.body());
+            }
+            return response.statusCode();
+        });
+    }
+
+    private void rememberFrom(String body) {
+        try {
+            remember(objectMapper.readTree(body).path("id").asLong());
+        } catch (IOException exception) {
+            // Not fatal: the response is still counted, the ID is just not reused
+        }
+    }
+
+    private void remember(long id) {
+        int slot = knownIdCount.getAndIncrement();
+        knownIds.set(slot & (KNOWN_ID_CAPACITY - 1), id);
+    }
+
+    private long randomKnownId() {
+        int count = Math.min(knownIdCount.get(), KNOWN_ID_CAPACITY);
+        if (count == 0) {
+            return 1;
+        }
+        return knownIds.get(ThreadLocalRandom.current().nextInt(count));
+    }
+
+    private static HttpRequest jsonRequest(URI uri, String method, String body) {
+        return HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static String bookingJson(SplittableRandom random) {
+        LocalDate checkIn = LocalDate.now().plusDays(random.nextInt(365));
+        LocalDate checkOut = checkIn.plusDays(1 + random.nextInt(7));
+        return "{\"customerName\":\"" + NAMES[random.nextInt(NAMES.length)] + "\","
+                + "\"roomType\":\"" + ROOM_TYPES[random.nextInt(ROOM_TYPES.length)] + "\","
+                + "\"checkInDate\":\"" + checkIn + " 00:00:00\","
+                + "\"checkOutDate\":\"" + checkOut + " 00:00:00\","
+                + "\"totalPrice\":" + (80 + random.nextInt(920)) + "}";
+    }
+}
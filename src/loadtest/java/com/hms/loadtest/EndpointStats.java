@@ -0,0 +1,93 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram and outcome counters for one operation. Safe for concurrent recording.
+ */
+final class EndpointStats {
+    private final Operation operation;
+    private final Histogram latencies = new ConcurrentHistogram(3);
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    EndpointStats(Operation operation) {
+        this.operation = operation;
+    }
+
+    /**
+     * Records one completed request.
+     * @param latencyNanos time from the intended start of the request to its completion.
+     * @param success whether the request returned a 2xx status.
+     */
+    void record(long latencyNanos, boolean success) {
+        latencies.recordValue(Math.max(1, TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+        if (success) {
+            successes.increment();
+        } else {
+            errors.increment();
+        }
+    }
+
+    void reset() {
+        latencies.reset();
+        successes.reset();
+        errors.reset();
+    }
+
+    long requests() {
+        return successes.sum() + errors.sum();
+    }
+
+    double errorRate() {
+        long requests = requests();
+        return requests == 0 ? 0 : (double) errors.sum() / requests;
+    }
+
+    double percentileMillis(double percentile) {
+        return latencies.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    /**
+     * Summarises throughput, error rate and latency percentiles over a measurement window.
+     * @param seconds the length of the measurement window.
+     * @return the summary, keyed by metric name.
+     */
+    Map<String, Object> summary(double seconds) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("endpoint", operation.getEndpoint());
+        summary.put("requests", requests());
+        summary.put("errors", errors.sum());
+        summary.put("errorRate", errorRate());
+        summary.put("throughputPerSecond", requests() / seconds);
+        summary.put("p50Millis", percentileMillis(50));
+        summary.put("p90Millis", percentileMillis(90));
+        summary.put("p99Millis", percentileMillis(99));
+        summary.put("p999Millis", percentileMillis(99.9));
+        summary.put("maxMillis", latencies.getMaxValue() / 1000.0);
+        return summary;
+    }
+}
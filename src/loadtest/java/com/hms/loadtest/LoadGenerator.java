@@ -0,0 +1,140 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.loadtest;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives booking traffic in either a closed or an open workload model and records per-operation latencies.
+ * In the open model latency is measured from the time a request was scheduled to start, so queueing
+ * delay is included rather than hidden (no coordinated omission).
+ */
+final class LoadGenerator {
+    private final LoadTestOptions options;
+    private final BookingTraffic traffic;
+    private final Map<Operation, EndpointStats> stats = new EnumMap<>(Operation.class);
+    private final Operation[] weightedOperations;
+
+    LoadGenerator(LoadTestOptions options, BookingTraffic traffic) {
+        this.options = options;
+        this.traffic = traffic;
+        int totalWeight = options.getMix().values().stream().mapToInt(Integer::intValue).sum();
+        this.weightedOperations = new Operation[totalWeight];
+        int next = 0;
+        for (Map.Entry<Operation, Integer> entry : options.getMix().entrySet()) {
+            for (int i = 0; i < entry.getValue(); i++) {
+                weightedOperations[next++] = entry.getKey();
+            }
+        }
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new EndpointStats(operation));
+        }
+    }
+
+    Map<Operation, EndpointStats> getStats() {
+        return stats;
+    }
+
+    void reset() {
+        stats.values().forEach(EndpointStats::reset);
+    }
+
+    /**
+     * Generates load for the given duration and waits for outstanding requests to finish.
+     * @param duration how long to generate load.
+     */
+    void run(Duration duration) throws InterruptedException {
+        if (options.getModel() == LoadTestOptions.Model.OPEN) {
+            runOpen(duration);
+        } else {
+            runClosed(duration);
+        }
+    }
+
+    private void runClosed(Duration duration) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        CountDownLatch done = new CountDownLatch(options.getConcurrency());
+        for (int worker = 0; worker < options.getConcurrency(); worker++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    while (System.nanoTime() < deadline) {
+                        Operation operation = nextOperation();
+                        long start = System.nanoTime();
+                        boolean success;
+                        try {
+                            success = isSuccess(traffic.send(operation).join());
+                        } catch (RuntimeException exception) {
+                            success = false;
+                        }
+                        stats.get(operation).record(System.nanoTime() - start, success);
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "loadtest-worker-" + worker);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+    }
+
+    private void runOpen(Duration duration) throws InterruptedException {
+        long intervalNanos = 1_000_000_000L / options.getRps();
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        AtomicInteger inFlight = new AtomicInteger();
+
+        for (long intended = start; intended < deadline; intended += intervalNanos) {
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Operation operation = nextOperation();
+            EndpointStats operationStats = stats.get(operation);
+            if (inFlight.get() >= options.getMaxInFlight()) {
+                // The server is too far behind; count the request as failed instead of queueing without bound
+                operationStats.record(System.nanoTime() - intended, false);
+                continue;
+            }
+
+            long scheduledAt = intended;
+            inFlight.incrementAndGet();
+            traffic.send(operation).whenComplete((status, failure) -> {
+                operationStats.record(System.nanoTime() - scheduledAt, failure == null && isSuccess(status));
+                inFlight.decrementAndGet();
+            });
+        }
+        while (inFlight.get() > 0) {
+            Thread.sleep(10);
+        }
+    }
+
+    private Operation nextOperation() {
+        return weightedOperations[ThreadLocalRandom.current().nextInt(weightedOperations.length)];
+    }
+
+    private static boolean isSuccess(int status) {
+        return status >= 200 && status < 300;
+    }
+}
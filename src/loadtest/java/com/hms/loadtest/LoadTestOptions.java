@@ -0,0 +1,107 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.loadtest;
+
+import lombok.Data;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Scenario options for a load test run, parsed from {@code --name=value} arguments.
+ * Arguments starting with {@code --app.} are passed to the application under test without the prefix.
+ */
+@Data
+public class LoadTestOptions {
+    public enum Model {
+        // A fixed number of workers, each sending its next request as soon as the previous one completes
+        CLOSED,
+        // Requests are started at a fixed rate regardless of how quickly earlier ones complete
+        OPEN
+    }
+
+    private Model model = Model.CLOSED;
+    private int concurrency = 16;
+    private int rps = 500;
+    private Duration warmup = Duration.ofSeconds(10);
+    private Duration duration = Duration.ofSeconds(30);
+    private Map<Operation, Integer> mix = parseMix("create=20,get=50,list=20,update=10");
+    private int seedBookings = 1000;
+    private long seed = 42;
+    private int maxInFlight = 10_000;
+    private double maxP99Millis = 0;
+    private double maxErrorRate = -1;
+    private Path baseline;
+    private double maxRegression = 0.2;
+    private Path report;
+    private List<String> applicationProperties = new ArrayList<>();
+
+    /**
+     * Parses the command line arguments of a load test run.
+     * @param args arguments of the form {@code --name=value}.
+     * @return the parsed options.
+     * @throws IllegalArgumentException if an argument is unknown or malformed.
+     */
+    public static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            String name = arg.substring(2, separator);
+            String value = arg.substring(separator + 1);
+            if (name.startsWith("app.")) {
+                options.applicationProperties.add(name.substring("app.".length()) + "=" + value);
+                continue;
+            }
+            switch (name) {
+                case "model" -> options.model = Model.valueOf(value.toUpperCase());
+                case "concurrency" -> options.concurrency = Integer.parseInt(value);
+                case "rps" -> options.rps = Integer.parseInt(value);
+                case "warmup" -> options.warmup = DurationStyle.detectAndParse(value);
+                case "duration" -> options.duration = DurationStyle.detectAndParse(value);
+                case "mix" -> options.mix = parseMix(value);
+                case "seed-bookings" -> options.seedBookings = Integer.parseInt(value);
+                case "seed" -> options.seed = Long.parseLong(value);
+                case "max-in-flight" -> options.maxInFlight = Integer.parseInt(value);
+                case "max-p99-ms" -> options.maxP99Millis = Double.parseDouble(value);
+                case "max-error-rate" -> options.maxErrorRate = Double.parseDouble(value);
+                case "baseline" -> options.baseline = Path.of(value);
+                case "max-regression" -> options.maxRegression = Double.parseDouble(value);
+                case "report" -> options.report = Path.of(value);
+                default -> throw new IllegalArgumentException("Unknown option: --" + name);
+            }
+        }
+        return options;
+    }
+
+    private static Map<Operation, Integer> parseMix(String value) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String entry : value.split(",")) {
+            String[] parts = entry.split(":|=");
+            mix.put(Operation.valueOf(parts[0].trim().toUpperCase()), Integer.parseInt(parts[1].trim()));
+        }
+        return mix;
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.hms.HmsApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Starts the application on an embedded server, replays a configurable mix of booking traffic against it
+ * and reports throughput, error rate and latency percentiles per endpoint.
+ * Exits with status 1 if a latency, error-rate or baseline-regression threshold is exceeded.
+ */
+public final class LoadTestRunner {
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        List<String> failures;
+        try (ConfigurableApplicationContext context = startApplication(options)) {
+            Map<String, Object> report = run(options, context);
+            ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+            System.out.println(objectMapper.writeValueAsString(report));
+            // Check before writing, the baseline may be the previous report at the same path
+            failures = check(options, report, objectMapper);
+            if (options.getReport() != null) {
+                Files.createDirectories(options.getReport().toAbsolutePath().getParent());
+                objectMapper.writeValue(options.getReport().toFile(), report);
+            }
+        }
+
+        if (!failures.isEmpty()) {
+            failures.forEach(failure -> System.err.println("LOAD TEST FAILED: " + failure));
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Runs the warm-up and measured phases against a running application.
+     * @param options the scenario options.
+     * @param context the application context of the server under test.
+     * @return the report, with scenario settings and per-endpoint summaries.
+     */
+    static Map<String, Object> run(LoadTestOptions options, ConfigurableApplicationContext context)
+            throws IOException, InterruptedException {
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+        try {
+            HttpClient httpClient = HttpClient.newBuilder().executor(clientExecutor).build();
+            BookingTraffic traffic = new BookingTraffic(URI.create("http://localhost:" + port + "/"), httpClient);
+            traffic.seed(options.getSeedBookings(), options.getSeed());
+
+            LoadGenerator generator = new LoadGenerator(options, traffic);
+            generator.run(options.getWarmup());
+            generator.reset();
+            long start = System.nanoTime();
+            generator.run(options.getDuration());
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("model", options.getModel());
+            report.put("concurrency", options.getConcurrency());
+            report.put("targetRps", options.getRps());
+            report.put("durationSeconds", seconds);
+            List<Map<String, Object>> endpoints = new ArrayList<>();
+            long totalRequests = 0;
+            for (EndpointStats stats : generator.getStats().values()) {
+                if (stats.requests() > 0) {
+                    endpoints.add(stats.summary(seconds));
+                    totalRequests += stats.requests();
+                }
+            }
+            report.put("throughputPerSecond", totalRequests / seconds);
+            report.put("endpoints", endpoints);
+            return report;
+        } finally {
+            clientExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Starts the application on a random port with the given extra properties.
+     * Every room type the traffic books has unlimited rooms, so that writes measure the server rather than
+     * the inventory, and admission control is off, so that an open-model run is not answered with 503s.
+     * Both can be overridden with {@code --app.<property>} options.
+     * @param options the scenario options, including properties for the application.
+     * @return the running application context.
+     */
+    static ConfigurableApplicationContext startApplication(LoadTestOptions options) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("server.port", "0");
+        properties.put("spring.jpa.show-sql", "false");
+        for (String roomType : BookingTraffic.ROOM_TYPES) {
+            properties.put("hms.inventory.capacity." + roomType, String.valueOf(Integer.MAX_VALUE));
+        }
+        properties.put("hms.admission.enabled", "false");
+        properties.put("logging.level.root", "WARN");
+        for (String property : options.getApplicationProperties()) {
+            int separator = property.indexOf('=');
+            properties.put(property.substring(0, separator), property.substring(separator + 1));
+        }
+        // Passed as command line arguments: default properties would lose to application.properties
+        return new SpringApplicationBuilder(HmsApplication.class)
+                .logStartupInfo(false)
+                .run(properties.entrySet().stream()
+                        .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                        .toArray(String[]::new));
+    }
+
+    private static List<String> check(LoadTestOptions options, Map<String, Object> report, ObjectMapper objectMapper)
+            throws IOException {
+        Map<String, JsonNode> baseline = new LinkedHashMap<>();
+        if (options.getBaseline() != null && Files.exists(options.getBaseline())) {
+            for (JsonNode endpoint : objectMapper.readTree(options.getBaseline().toFile()).path("endpoints")) {
+                baseline.put(endpoint.path("endpoint").asText(), endpoint);
+            }
+        }
+
+        List<String> failures = new ArrayList<>();
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> endpoints = (List<Map<String, Object>>) report.get("endpoints");
+        for (Map<String, Object> endpoint : endpoints) {
+            String name = (String) endpoint.get("endpoint");
+            double p99 = (double) endpoint.get("p99Millis");
+            double errorRate = (double) endpoint.get("errorRate");
+            if (options.getMaxP99Millis() > 0 && p99 > options.getMaxP99Millis()) {
+                failures.add(name + " p99 " + p99 + " ms exceeds " + options.getMaxP99Millis() + " ms");
+            }
+            if (options.getMaxErrorRate() >= 0 && errorRate > options.getMaxErrorRate()) {
+                failures.add(name + " error rate " + errorRate + " exceeds " + options.getMaxErrorRate());
+            }
+            JsonNode previous = baseline.get(name);
+            if (previous != null) {
+                double limit = previous.path("p99Millis").asDouble() * (1 + options.getMaxRegression());
+                if (p99 > limit) {
+                    failures.add(name + " p99 " + p99 + " ms regressed past " + limit + " ms (baseline "
+                            + previous.path("p99Millis").asDouble() + " ms)");
+                }
+            }
+        }
+        return failures;
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.hms.HmsApplication;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures time-to-first-request: how long a freshly started application JVM takes until
+ * {@code GET /bookings} first answers 200 OK. Each run starts a separate JVM, so class loading,
+ * JIT warm-up and any CDS archive are included just as they are when an instance is scaled up.
+ * <p>
+ * Options (all {@code --name=value}): {@code runs}, {@code timeout}, {@code jvm-args} (space separated,
+ * e.g. {@code -XX:SharedArchiveFile=target/cds/application.jsa}), {@code classpath} (defaults to this JVM's),
+ * {@code report}, and {@code app.<property>} for application properties, e.g. {@code --app.spring.profiles.active=fast-startup}.
+ */
+public final class StartupBenchmark {
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(5);
+
+    private StartupBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int runs = 5;
+        Duration timeout = Duration.ofSeconds(60);
+        List<String> jvmArgs = new ArrayList<>();
+        String classPath = System.getProperty("java.class.path");
+        Path report = null;
+        List<String> applicationArgs = new ArrayList<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            String name = arg.substring(2, separator);
+            String value = arg.substring(separator + 1);
+            if (name.startsWith("app.")) {
+                applicationArgs.add("--" + name.substring("app.".length()) + "=" + value);
+                continue;
+            }
+            switch (name) {
+                case "runs" -> runs = Integer.parseInt(value);
+                case "timeout" -> timeout = DurationStyle.detectAndParse(value);
+                case "jvm-args" -> jvmArgs.addAll(Arrays.asList(value.trim().split("\\s+")));
+                case "classpath" -> classPath = value;
+                case "report" -> report = Path.of(value);
+                default -> throw new IllegalArgumentException("Unknown option: --" + name);
+            }
+        }
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        List<Double> startupMillis = new ArrayList<>();
+        for (int run = 1; run <= runs; run++) {
+            double millis = measureStartup(client, classPath, jvmArgs, applicationArgs, timeout);
+            System.out.printf("Run %d: first request answered after %.0f ms%n", run, millis);
+            startupMillis.add(millis);
+        }
+
+        List<Double> sorted = startupMillis.stream().sorted().toList();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("jvmArgs", jvmArgs);
+        result.put("applicationArgs", applicationArgs);
+        result.put("runs", startupMillis);
+        result.put("minMillis", sorted.get(0));
+        result.put("medianMillis", sorted.get(sorted.size() / 2));
+        result.put("maxMillis", sorted.get(sorted.size() - 1));
+
+        ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        System.out.println(objectMapper.writeValueAsString(result));
+        if (report != null) {
+            Files.createDirectories(report.toAbsolutePath().getParent());
+            objectMapper.writeValue(report.toFile(), result);
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Starts the application in a new JVM and polls it until the first successful response.
+     * @return the milliseconds from launching the JVM to the first 200 OK.
+     */
+    private static double measureStartup(HttpClient client, String classPath, List<String> jvmArgs,
+                                         List<String> applicationArgs, Duration timeout)
+            throws IOException, InterruptedException {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.addAll(List.of("-cp", classPath, HmsApplication.class.getName(), "--server.port=" + port));
+        command.addAll(applicationArgs);
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/bookings?limit=1"))
+                .timeout(Duration.ofSeconds(5))
+                .build();
+
+        long startedAt = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            long deadline = startedAt + timeout.toNanos();
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Application exited with status " + process.exitValue()
+                            + " before answering a request");
+                }
+                try {
+                    HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() == 200) {
+                        return (System.nanoTime() - startedAt) / 1_000_000.0;
+                    }
+                } catch (IOException exception) {
+                    // Not listening yet
+                }
+                Thread.sleep(POLL_INTERVAL.toMillis());
+            }
+            throw new IllegalStateException("Application did not answer within " + timeout);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.loadtest;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Runs the same load scenario against the platform-thread and the virtual-thread configuration,
+ * one after the other, and reports throughput and p99 latency side by side.
+ * Each mode runs in a fresh JVM against its own in-memory database, so the second run neither inherits
+ * the first run's bookings nor its JIT-compiled code and heap.
+ * Virtual threads need Java 21; on older runtimes both runs use platform threads.
+ */
+public final class ThreadModeComparison {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private ThreadModeComparison() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (Runtime.version().feature() < 21) {
+            System.err.println("WARNING: Java " + Runtime.version().feature()
+                    + " has no virtual threads; build and run with -Pvirtual-threads on Java 21 for a meaningful comparison");
+        }
+
+        Map<String, Object> comparison = new LinkedHashMap<>();
+        comparison.put("platform", runMode("platform", args));
+        comparison.put("virtual", runMode("virtual", args, "--app.spring.profiles.active=virtual-threads"));
+
+        System.out.println(OBJECT_MAPPER.writeValueAsString(comparison));
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        if (options.getReport() != null) {
+            Files.createDirectories(options.getReport().toAbsolutePath().getParent());
+            OBJECT_MAPPER.writeValue(options.getReport().toFile(), comparison);
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Runs {@link LoadTestRunner} for one mode in a new JVM and reads back its report.
+     */
+    private static Map<String, Object> runMode(String mode, String[] args, String... extraArgs) throws Exception {
+        Path report = Files.createTempFile("thread-mode-" + mode + "-", ".json");
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(List.of("-cp", System.getProperty("java.class.path"), LoadTestRunner.class.getName()));
+        command.addAll(List.of(args));
+        command.addAll(List.of(extraArgs));
+        // Later options win, so these replace any database or report given for the comparison as a whole
+        command.add("--app.spring.datasource.url=jdbc:h2:mem:" + mode + "-" + UUID.randomUUID()
+                + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE");
+        command.add("--report=" + report);
+        try {
+            int status = new ProcessBuilder(command).inheritIO().start().waitFor();
+            if (Files.size(report) == 0) {
+                throw new IllegalStateException("The " + mode + " run exited with status " + status
+                        + " without writing a report");
+            }
+            return OBJECT_MAPPER.readValue(report.toFile(), new TypeReference<>() {
+            });
+        } finally {
+            Files.deleteIfExists(report);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hms.model.ErrorResponse;
+import com.hms.utils.ApiUrls;
+import com.hms.utils.GradientConcurrencyLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sheds load on the booking API before it reaches the controller. Reads and writes each pass through their own
+ * {@link GradientConcurrencyLimiter}, which lowers the number of requests allowed in flight when latency rises,
+ * for example while H2 is slowed down by heavy writes, and raises it again as latency recovers.
+ * <p>
+ * A request over the limit is answered immediately with {@code hms.admission.reject-status} and a
+ * {@code Retry-After} header, instead of queueing in Tomcat. Long-lived streams such as the change feed
+ * and the export are listed in {@code hms.admission.excluded-paths} and are not limited.
+ */
+@Component
+public class AdmissionControlFilter extends OncePerRequestFilter {
+    private final AdmissionControlProperties properties;
+    private final ObjectMapper objectMapper;
+    private final GradientConcurrencyLimiter readLimiter;
+    private final GradientConcurrencyLimiter writeLimiter;
+    private final Counter rejectedReads;
+    private final Counter rejectedWrites;
+
+    @Autowired
+    public AdmissionControlFilter(AdmissionControlProperties properties, ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.readLimiter = limiter(properties.getReads());
+        this.writeLimiter = limiter(properties.getWrites());
+        this.rejectedReads = register(meterRegistry, "read", readLimiter);
+        this.rejectedWrites = register(meterRegistry, "write", writeLimiter);
+    }
+
+    private GradientConcurrencyLimiter limiter(AdmissionControlProperties.Limit limit) {
+        return new GradientConcurrencyLimiter(limit.getInitialLimit(), limit.getMinLimit(), limit.getMaxLimit(),
+                properties.getTolerance(), properties.getSmoothing(), properties.getSampleWindow().toNanos(),
+                properties.getMinWindowSamples());
+    }
+
+    private static Counter register(MeterRegistry meterRegistry, String requestClass, GradientConcurrencyLimiter limiter) {
+        Gauge.builder("hms.admission.limit", limiter, GradientConcurrencyLimiter::getLimit)
+                .description("Current concurrency limit of the booking API")
+                .tag("class", requestClass)
+                .register(meterRegistry);
+        Gauge.builder("hms.admission.inflight", limiter, GradientConcurrencyLimiter::getInFlight)
+                .description("Booking API requests currently in flight")
+                .tag("class", requestClass)
+                .register(meterRegistry);
+        Gauge.builder("hms.admission.rtt.baseline", limiter, l -> l.getBaselineRttNanos() / 1_000_000)
+                .description("Baseline latency the concurrency limit adapts against, in milliseconds")
+                .tag("class", requestClass)
+                .register(meterRegistry);
+        return Counter.builder("hms.admission.rejected")
+                .description("Booking API requests rejected by admission control")
+                .tag("class", requestClass)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!properties.isEnabled()) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        boolean bookingApi = path.equals(ApiUrls.API_URL_BOOKINGS) || path.startsWith(ApiUrls.API_URL_BOOKINGS + "/");
+        return !bookingApi || properties.getExcludedPaths().contains(path);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean read = "GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod());
+        GradientConcurrencyLimiter limiter = read ? readLimiter : writeLimiter;
+        if (!limiter.tryAcquire()) {
+            (read ? rejectedReads : rejectedWrites).increment();
+            reject(request, response);
+            return;
+        }
+
+        long startedAt = System.nanoTime();
+        boolean completed = false;
+        try {
+            filterChain.doFilter(request, response);
+            completed = true;
+        } finally {
+            if (completed && request.isAsyncStarted()) {
+                // The response is written later, e.g. once a group commit has finished
+                request.getAsyncContext().addListener(new ReleasingAsyncListener(limiter, startedAt));
+            } else {
+                release(limiter, startedAt, completed ? response.getStatus() : 500);
+            }
+        }
+    }
+
+    private static void release(GradientConcurrencyLimiter limiter, long startedAt, int status) {
+        // Server errors are often fast failures and would make latency look better than it is
+        if (status < 500) {
+            limiter.release(System.nanoTime() - startedAt);
+        } else {
+            limiter.releaseWithoutSample();
+        }
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        HttpStatus status = HttpStatus.valueOf(properties.getRejectStatus());
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, properties.getRetryAfter().toSeconds())));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponse(status.value(), status.getReasonPhrase(),
+                "The server is at its concurrency limit, please retry later", request.getRequestURI(), null));
+    }
+
+    private static final class ReleasingAsyncListener implements AsyncListener {
+        private final GradientConcurrencyLimiter limiter;
+        private final long startedAt;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        ReleasingAsyncListener(GradientConcurrencyLimiter limiter, long startedAt) {
+            this.limiter = limiter;
+            this.startedAt = startedAt;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            if (released.compareAndSet(false, true)) {
+                release(limiter, startedAt, ((HttpServletResponse) event.getSuppliedResponse()).getStatus());
+            }
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            if (released.compareAndSet(false, true)) {
+                limiter.releaseWithoutSample();
+            }
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            if (released.compareAndSet(false, true)) {
+                limiter.releaseWithoutSample();
+            }
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Keep listening if the request goes asynchronous again
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
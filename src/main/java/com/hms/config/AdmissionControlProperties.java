@@ -0,0 +1,61 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Settings of the adaptive admission control in front of the booking API, bound from {@code hms.admission.*}.
+ * Reads (GET, HEAD) and writes (all other methods) have separate limits; see {@link AdmissionControlFilter}.
+ */
+@Component
+@ConfigurationProperties(prefix = "hms.admission")
+@Data
+public class AdmissionControlProperties {
+    private boolean enabled = false;
+    private int rejectStatus = 503;
+    private Duration retryAfter = Duration.ofSeconds(1);
+    private double tolerance = 1.5;
+    private double smoothing = 0.2;
+    private Duration sampleWindow = Duration.ofMillis(100);
+    private int minWindowSamples = 10;
+    private List<String> excludedPaths = new ArrayList<>(List.of("/bookings/changes", "/bookings/export"));
+    private Limit reads = new Limit(50, 10, 500);
+    private Limit writes = new Limit(20, 4, 200);
+
+    /**
+     * Bounds of the concurrency limit of one request class. The limit starts at {@code initialLimit}
+     * and adapts between {@code minLimit} and {@code maxLimit}.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limit {
+        private int initialLimit;
+        private int minLimit;
+        private int maxLimit;
+    }
+}
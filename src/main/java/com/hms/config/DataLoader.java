@@ -16,7 +16,10 @@
 
 package com.hms.config;
 import com.hms.model.Booking;
+import com.hms.repository.BookingRepository;
+import com.hms.service.BookingSeeder;
 import com.hms.service.BookingService;
+import lombok.extern.slf4j.Slf4j;
 import org.antlr.v4.runtime.misc.Pair;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
@@ -27,37 +30,80 @@ import java.time.ZoneId;
 import java.util.Date;
 
 @Configuration
+@Slf4j
 public class DataLoader {
 
+    /**
+     * Seeds the database at startup according to {@code hms.seed.mode}: the two sample bookings by default,
+     * a bulk load of synthetic bookings in {@code synthetic} mode, or nothing in {@code none} mode.
+     * With {@code hms.seed.async} the seeding runs on a background thread and startup does not wait for it.
+     * Nothing is seeded if the database already contains bookings.
+     */
     @Bean
-    CommandLineRunner initDatabase(BookingService bookingService) {
+    CommandLineRunner initDatabase(BookingService bookingService, BookingSeeder bookingSeeder,
+                                   BookingRepository bookingRepository, SeedProperties seedProperties) {
         return args -> {
-            Pair<Date, Date> firstDatePair = initDates(2);
-            bookingService.saveBooking(
-                    new Booking(
-                            null,
-                            "John Doe",
-                            "Deluxe",
-                            firstDatePair.a,
-                            firstDatePair.b,
-                            250
-                    )
-            );
-
-            Pair<Date, Date> secondDatePair = initDates(3);
-            bookingService.saveBooking(
-                    new Booking(
-                            null,
-                            "Jane Doe",
-                            "Suite",
-                            secondDatePair.a,
-                            secondDatePair.b,
-                            375
-                    )
-            );
+            if (!seedProperties.isAsync()) {
+                seed(seedProperties.getMode(), bookingService, bookingSeeder, bookingRepository);
+                return;
+            }
+            Thread seeder = new Thread(() -> {
+                try {
+                    seed(seedProperties.getMode(), bookingService, bookingSeeder, bookingRepository);
+                } catch (RuntimeException exception) {
+                    log.error("Seeding the database failed", exception);
+                }
+            }, "booking-seed");
+            seeder.setDaemon(true);
+            seeder.start();
         };
     }
 
+    private void seed(SeedProperties.Mode mode, BookingService bookingService, BookingSeeder bookingSeeder,
+                      BookingRepository bookingRepository) {
+        // A file-backed or restored database keeps its bookings across restarts
+        if (mode != SeedProperties.Mode.NONE && bookingRepository.count() > 0) {
+            log.info("Database already contains bookings, skipping {} seeding", mode);
+            return;
+        }
+        switch (mode) {
+            case SYNTHETIC -> bookingSeeder.seedSynthetic();
+            case DEMO -> seedDemoBookings(bookingService);
+            case NONE -> {
+            }
+        }
+    }
+
+    private void seedDemoBookings(BookingService bookingService) {
+        Pair<Date, Date> firstDatePair = initDates(2);
+        bookingService.saveBooking(
+                new Booking(
+                        null,
+                        "John Doe",
+                        "Deluxe",
+                        firstDatePair.a,
+                        firstDatePair.b,
+                        250,
+                        null,
+                        null
+                )
+        );
+
+        Pair<Date, Date> secondDatePair = initDates(3);
+        bookingService.saveBooking(
+                new Booking(
+                        null,
+                        "Jane Doe",
+                        "Suite",
+                        secondDatePair.a,
+                        secondDatePair.b,
+                        375,
+                        null,
+                        null
+                )
+        );
+    }
+
     /**
      * Initializes check-in and check-out dates for a booking.
      * The check-in date is set to the current date, and the check-out date is set two days later.
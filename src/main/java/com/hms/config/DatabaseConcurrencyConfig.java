@@ -0,0 +1,62 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Puts a {@link ConnectionLimitingDataSource} in front of the application's DataSource when
+ * {@code hms.db.concurrency-limit.enabled=true}. Intended for the virtual-thread profile.
+ */
+@Configuration
+@ConditionalOnProperty(name = "hms.db.concurrency-limit.enabled", havingValue = "true")
+public class DatabaseConcurrencyConfig {
+
+    @Bean
+    static BeanPostProcessor connectionLimitingDataSourcePostProcessor(Environment environment,
+                                                                      ObjectProvider<MeterRegistry> meterRegistry) {
+        int permits = environment.getProperty("hms.db.concurrency-limit.permits", Integer.class,
+                environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10));
+        Duration acquireTimeout = environment.getProperty("hms.db.concurrency-limit.acquire-timeout", Duration.class,
+                Duration.ofSeconds(5));
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ConnectionLimitingDataSource)) {
+                    ConnectionLimitingDataSource limited = new ConnectionLimitingDataSource(dataSource, permits, acquireTimeout);
+                    meterRegistry.ifAvailable(registry -> Gauge.builder("hms.db.permit.queue", limited,
+                                    ConnectionLimitingDataSource::getQueueLength)
+                            .description("Callers waiting for a database connection permit")
+                            .register(registry));
+                    return limited;
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.config;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.databind.introspect.Annotated;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMethod;
+import com.fasterxml.jackson.databind.introspect.JacksonAnnotationIntrospector;
+
+import java.util.Date;
+
+/**
+ * Ignores {@code @JsonFormat} patterns on {@link Date} properties, so that dates are written as epoch milliseconds.
+ * Used for the binary formats, where formatting and parsing date strings would cost more than the rest of the payload.
+ */
+public class EpochDateAnnotationIntrospector extends JacksonAnnotationIntrospector {
+
+    @Override
+    public JsonFormat.Value findFormat(Annotated annotated) {
+        JsonFormat.Value format = super.findFormat(annotated);
+        if (format != null && format.hasPattern() && Date.class.isAssignableFrom(propertyType(annotated))) {
+            return JsonFormat.Value.forShape(JsonFormat.Shape.NUMBER);
+        }
+        return format;
+    }
+
+    private static Class<?> propertyType(Annotated annotated) {
+        // For setters the property type is the parameter type, not the return type
+        if (annotated instanceof AnnotatedMethod method && method.getParameterCount() == 1) {
+            return method.getRawParameterType(0);
+        }
+        return annotated.getRawType();
+    }
+}
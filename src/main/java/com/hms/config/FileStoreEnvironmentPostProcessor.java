@@ -0,0 +1,129 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.config;
+
+import org.apache.commons.logging.Log;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.boot.logging.DeferredLogFactory;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Prepares the file-backed store before the DataSource is created.
+ * <ul>
+ *     <li>Derives {@code hms.store.write-delay-millis}, used in the JDBC URL, from the durability mode.</li>
+ *     <li>If there is no database file yet, restores it from {@code hms.store.restore-from} or the newest snapshot.
+ *     Unpacking the snapshot copies the database file as a whole, which is far quicker than reloading rows.</li>
+ * </ul>
+ * Registered in {@code META-INF/spring.factories}.
+ */
+public class FileStoreEnvironmentPostProcessor implements EnvironmentPostProcessor {
+    private static final String PROPERTY_SOURCE_NAME = "hmsFileStore";
+
+    private final Log log;
+
+    public FileStoreEnvironmentPostProcessor(DeferredLogFactory logFactory) {
+        this.log = logFactory.getLog(FileStoreEnvironmentPostProcessor.class);
+    }
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        FileStoreProperties properties = Binder.get(environment)
+                .bind("hms.store", FileStoreProperties.class)
+                .orElseGet(FileStoreProperties::new);
+        if (!properties.isEnabled()) {
+            return;
+        }
+        environment.getPropertySources().addLast(new MapPropertySource(PROPERTY_SOURCE_NAME,
+                Map.of("hms.store.write-delay-millis", properties.effectiveWriteDelayMillis())));
+
+        Path databaseFile = properties.databaseFile();
+        if (Files.exists(databaseFile)) {
+            if (properties.getRestoreFrom() != null) {
+                log.warn("Not restoring " + properties.getRestoreFrom() + ": database file " + databaseFile + " already exists");
+            }
+            return;
+        }
+        if (!properties.isRestoreOnStartup() && properties.getRestoreFrom() == null) {
+            return;
+        }
+        Optional<Path> snapshot = properties.getRestoreFrom() != null
+                ? Optional.of(properties.getRestoreFrom())
+                : newestSnapshot(properties.resolveSnapshotDirectory());
+        snapshot.ifPresent(path -> restore(path, properties));
+    }
+
+    private static Optional<Path> newestSnapshot(Path snapshotDirectory) {
+        if (!Files.isDirectory(snapshotDirectory)) {
+            return Optional.empty();
+        }
+        try (Stream<Path> files = Files.list(snapshotDirectory)) {
+            // Snapshot names start with a sortable timestamp
+            return files.filter(file -> file.getFileName().toString().endsWith(".zip"))
+                    .max(Comparator.comparing(file -> file.getFileName().toString()));
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Cannot list snapshots in " + snapshotDirectory, exception);
+        }
+    }
+
+    /**
+     * Unpacks an H2 backup archive into the store directory. The archive holds the database file under its own name,
+     * which must match the configured database name.
+     */
+    private void restore(Path snapshot, FileStoreProperties properties) {
+        long startedAt = System.nanoTime();
+        String expectedEntry = properties.databaseFile().getFileName().toString();
+        Path restoring = properties.databaseFile().resolveSibling(expectedEntry + ".restoring");
+        boolean restored = false;
+        try {
+            Files.createDirectories(properties.getDirectory());
+            try (ZipInputStream zip = new ZipInputStream(Files.newInputStream(snapshot))) {
+                for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                    if (Path.of(entry.getName()).getFileName().toString().equals(expectedEntry)) {
+                        Files.copy(zip, restoring, StandardCopyOption.REPLACE_EXISTING);
+                        restored = true;
+                        break;
+                    }
+                }
+            }
+            if (!restored) {
+                throw new IllegalStateException("Snapshot " + snapshot + " does not contain " + expectedEntry);
+            }
+            // Only a completely unpacked file becomes the database
+            Files.move(restoring, properties.databaseFile(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Cannot restore snapshot " + snapshot, exception);
+        }
+        log.info("Restored database from snapshot " + snapshot + " in "
+                + (System.nanoTime() - startedAt) / 1_000_000 + " ms");
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings of the file-backed storage mode, bound from {@code hms.store.*} and enabled by the
+ * {@code file-store} profile. Bookings are kept in an H2 MVStore file under {@code directory}.
+ */
+@Component
+@ConfigurationProperties(prefix = "hms.store")
+@Data
+public class FileStoreProperties {
+    /**
+     * When commits reach the database file. Neither mode forces each commit to disk: the file is only
+     * fsynced every {@code fsync-interval}, so commits since the last fsync can be lost on power failure.
+     */
+    public enum Durability {
+        // Every commit is handed to the operating system before it returns, so it survives a process crash
+        WRITE_THROUGH,
+        // Commits are written in the background within write-delay
+        PERIODIC
+    }
+
+    private boolean enabled = false;
+    private Path directory = Path.of("./data");
+    private String databaseName = "booking_db";
+    private Durability durability = Durability.PERIODIC;
+    private Duration writeDelay = Duration.ofMillis(500);
+    private Duration fsyncInterval = Duration.ofSeconds(1);
+    private int cacheSizeKb = 65_536;
+    private Path snapshotDirectory;
+    private int snapshotRetention = 3;
+    // Restore the newest snapshot (or restore-from) when no database file exists yet
+    private boolean restoreOnStartup = true;
+    private Path restoreFrom;
+
+    /**
+     * The H2 WRITE_DELAY setting in milliseconds implied by the durability mode.
+     * @return 0 for write-through durability, otherwise the configured write delay.
+     */
+    public long effectiveWriteDelayMillis() {
+        return durability == Durability.WRITE_THROUGH ? 0 : writeDelay.toMillis();
+    }
+
+    /**
+     * @return the directory snapshots are written to, by default {@code snapshots} under the store directory.
+     */
+    public Path resolveSnapshotDirectory() {
+        return snapshotDirectory != null ? snapshotDirectory : directory.resolve("snapshots");
+    }
+
+    /**
+     * @return the path of the MVStore file of the database.
+     */
+    public Path databaseFile() {
+        return directory.resolve(databaseName + ".mv.db");
+    }
+}
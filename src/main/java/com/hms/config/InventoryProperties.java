@@ -0,0 +1,78 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Number of rooms available per room type, bound from {@code hms.inventory.*}.
+ * Only room types with an entry in {@code hms.inventory.capacity} exist; requests for any other room type are rejected.
+ * Holds on rooms last {@code hms.inventory.hold-ttl}; expired holds are released every {@code hms.inventory.hold-sweep-interval}.
+ */
+@Component
+@ConfigurationProperties(prefix = "hms.inventory")
+@Data
+public class InventoryProperties {
+    private Map<String, Integer> capacity = new HashMap<>();
+    private Duration holdTtl = Duration.ofMinutes(10);
+    private Duration holdSweepInterval = Duration.ofSeconds(30);
+
+    /**
+     * Returns the number of rooms of the given type, matching the room type case-insensitively.
+     * @param roomType the room type.
+     * @return the configured capacity, or 0 if the room type is not configured.
+     */
+    public int capacityOf(String roomType) {
+        Map.Entry<String, Integer> entry = configuredEntry(roomType);
+        return entry != null ? entry.getValue() : 0;
+    }
+
+    /**
+     * Tells whether a room type has a configured capacity, matching case-insensitively.
+     * @param roomType the room type.
+     * @return true if the room type is configured.
+     */
+    public boolean isConfigured(String roomType) {
+        return configuredEntry(roomType) != null;
+    }
+
+    /**
+     * Returns the room type as spelled in the configuration, matching case-insensitively.
+     * @param roomType the room type.
+     * @return the configured spelling, or the given room type if it has no configured capacity.
+     */
+    public String configuredRoomType(String roomType) {
+        Map.Entry<String, Integer> entry = configuredEntry(roomType);
+        return entry != null ? entry.getKey() : roomType;
+    }
+
+    private Map.Entry<String, Integer> configuredEntry(String roomType) {
+        for (Map.Entry<String, Integer> entry : capacity.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(roomType)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+}
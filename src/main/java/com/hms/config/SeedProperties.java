@@ -0,0 +1,62 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * How the database is seeded at startup, bound from {@code hms.seed.*}.
+ * The default {@link Mode#DEMO} mode inserts the two sample bookings; {@link Mode#SYNTHETIC} bulk-loads
+ * generated bookings for performance work.
+ */
+@Component
+@ConfigurationProperties(prefix = "hms.seed")
+@Data
+public class SeedProperties {
+    public enum Mode {
+        DEMO,
+        SYNTHETIC,
+        NONE
+    }
+
+    private Mode mode = Mode.DEMO;
+    // Seed on a background thread so that startup does not wait for it
+    private boolean async = false;
+    private Synthetic synthetic = new Synthetic();
+
+    /**
+     * Settings of the synthetic data set. The same seed, start date and row count always produce the same bookings,
+     * whatever the number of generator threads.
+     */
+    @Data
+    public static class Synthetic {
+        private long rows = 1_000_000;
+        private long randomSeed = 42;
+        // Null means today; set it to make the generated dates reproducible across days
+        private LocalDate startDate;
+        private int horizonDays = 365;
+        private int chunkSize = 5_000;
+        private int generatorThreads = Runtime.getRuntime().availableProcessors();
+        // Room capacities are raised to the seeded peak occupancy plus this fraction of it, so new bookings still fit
+        private double capacityHeadroom = 0.25;
+    }
+}
@@ -16,39 +16,122 @@
 
 package com.hms.controller;
 
+import com.hms.config.AsyncTimeoutConfig;
 import com.hms.exceptions.ResourceNotFoundException;
+import com.hms.model.Availability;
 import com.hms.model.Booking;
+import com.hms.model.BookingBatchResult;
+import com.hms.model.BookingFilter;
+import com.hms.model.BookingPage;
+import com.hms.model.BookingPatch;
+import com.hms.model.BookingSearchCriteria;
+import com.hms.model.BookingSummary;
+import com.hms.model.CacheStatistics;
+import com.hms.model.ExportFormat;
+import com.hms.model.InventoryHold;
+import com.hms.model.RoomTypeStats;
+import com.hms.service.BookingArchiver;
+import com.hms.service.BookingChangeFeed;
+import com.hms.service.BookingExportService;
 import com.hms.service.BookingService;
 import com.hms.utils.ApiUrls;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping(ApiUrls.API_URL_BOOKINGS)
 public class BookingController {
 
     private final BookingService bookingService;
+    private final BookingExportService bookingExportService;
+    private final BookingArchiver bookingArchiver;
+    private final BookingChangeFeed bookingChangeFeed;
+    private final Duration exportTimeout;
 
     @Autowired
-    public BookingController(BookingService bookingService) {
+    public BookingController(BookingService bookingService, BookingExportService bookingExportService,
+                             BookingArchiver bookingArchiver, BookingChangeFeed bookingChangeFeed,
+                             @Value("${hms.export.timeout:30m}") Duration exportTimeout) {
         this.bookingService = bookingService;
+        this.bookingExportService = bookingExportService;
+        this.bookingArchiver = bookingArchiver;
+        this.bookingChangeFeed = bookingChangeFeed;
+        this.exportTimeout = exportTimeout;
     }
 
     /**
      * Creates a new booking in the system. If the operation is successful, returns the saved booking object.
+     * Any ID or version in the body is ignored; existing bookings are changed with PUT or PATCH.
+     * If no room of the requested type is free for the whole stay, a 409 Conflict is returned.
+     * With group commit enabled the response is sent once the booking's group has been committed,
+     * and a 429 Too Many Requests is returned while the write buffer is full.
      * In case of any exception, the global exception handler takes over and returns an appropriate error response.
      *
      * @param booking the booking details from the request body to be saved
-     * @return a ResponseEntity containing the saved booking object and HTTP status code
+     * @param holdId the ID of a hold on a room for the same stay, if one was taken
+     * @return a future ResponseEntity containing the saved booking object and HTTP status code
      */
     @PostMapping
-    public ResponseEntity<Booking> addBooking(@Validated @RequestBody Booking booking) {
-        Booking savedBooking = bookingService.saveBooking(booking);
-        return ResponseEntity.ok(savedBooking);
+    public CompletableFuture<ResponseEntity<Booking>> addBooking(@Validated @RequestBody Booking booking,
+                                                                 @RequestParam(required = false) String holdId) {
+        return bookingService.createBooking(booking, holdId).thenApply(ResponseEntity::ok);
+    }
+
+    /**
+     * Holds a room of the given type for a stay while the guest completes the booking.
+     * The hold is claimed by passing its ID as {@code holdId} when creating the booking, and expires otherwise.
+     * If no room is free for the whole stay, a 409 Conflict is returned.
+     *
+     * @param roomType the room type to hold.
+     * @param checkIn the first night of the stay.
+     * @param checkOut the departure date.
+     * @return ResponseEntity containing the hold and its expiry time with HTTP 200 OK.
+     */
+    @PostMapping(ApiUrls.API_URL_HOLDS)
+    public ResponseEntity<InventoryHold> holdRoom(
+            @RequestParam String roomType,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkIn,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkOut) {
+        return ResponseEntity.ok(bookingService.holdRoom(roomType, checkIn, checkOut));
+    }
+
+    /**
+     * Releases a hold before it expires.
+     * @param holdId the ID of the hold.
+     * @return ResponseEntity with HTTP 204 No Content, or 404 Not Found if the hold no longer exists.
+     */
+    @DeleteMapping(ApiUrls.API_URL_HOLD_BY_ID)
+    public ResponseEntity<Void> releaseHold(@PathVariable String holdId) {
+        bookingService.releaseHold(holdId);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Creates many bookings in one request. Each item is validated on its own, so a single invalid
+     * booking does not fail the whole batch. Valid items are inserted in JDBC-batched chunks.
+     *
+     * @param bookings the array of bookings to create
+     * @return a ResponseEntity containing the per-item results and summary counts with HTTP 200 OK
+     */
+    @PostMapping(ApiUrls.API_URL_BATCH_BOOKINGS)
+    public ResponseEntity<BookingBatchResult> addBookings(@RequestBody List<Booking> bookings) {
+        BookingBatchResult result = bookingService.saveBookings(bookings);
+        return ResponseEntity.ok(result);
     }
 
     /**
@@ -66,19 +149,146 @@ public class BookingController {
     }
 
     /**
-     * Retrieves all bookings. Returns an empty list if no bookings are found.
-     * @return ResponseEntity containing a list of bookings or an empty list with HTTP 200 OK.
+     * Retrieves one page of bookings. Supports optional filters on room type and check-in date range.
+     * The response carries a {@code nextCursor} to pass back as {@code cursor} for the following page;
+     * it is null on the last page.
+     *
+     * @param filter the cursor, page size and optional filters bound from the query string.
+     * @return ResponseEntity containing the page of bookings with HTTP 200 OK.
      */
     @GetMapping
-    public ResponseEntity<List<Booking>> getAllBookings() {
-        List<Booking> bookings = bookingService.getAllBookings();
+    public ResponseEntity<BookingPage<Booking>> getAllBookings(BookingFilter filter) {
+        BookingPage<Booking> bookings = bookingService.getAllBookings(filter);
         return ResponseEntity.ok(bookings);
     }
 
+    /**
+     * Searches bookings by customer name prefix (case-insensitive), room type, and check-in/check-out date ranges.
+     * Every criterion is optional. Results are booking summaries paginated by cursor in the same way as the listing.
+     *
+     * @param criteria the search criteria, cursor and page size bound from the query string.
+     * @return ResponseEntity containing the page of matching bookings with HTTP 200 OK.
+     */
+    @GetMapping(ApiUrls.API_URL_SEARCH)
+    public ResponseEntity<BookingPage<BookingSummary>> searchBookings(BookingSearchCriteria criteria) {
+        return ResponseEntity.ok(bookingService.searchBookings(criteria));
+    }
+
+    /**
+     * Reports how many rooms are free between two dates, for one room type or for all known room types.
+     * Answered from the in-memory availability index, so it does not scan the bookings table.
+     *
+     * @param roomType the room type to check, or omitted for all room types.
+     * @param checkIn the first night of the stay.
+     * @param checkOut the departure date.
+     * @return ResponseEntity containing the availability per room type with HTTP 200 OK.
+     */
+    @GetMapping(ApiUrls.API_URL_AVAILABILITY)
+    public ResponseEntity<List<Availability>> getAvailability(
+            @RequestParam(required = false) String roomType,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkIn,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkOut) {
+        List<Availability> availability = bookingService.getAvailability(roomType, checkIn, checkOut);
+        return ResponseEntity.ok(availability);
+    }
+
+    /**
+     * Reports nights sold, revenue and average nightly rate per room type over all bookings.
+     * Served from incrementally maintained rollups, so the cost does not depend on the number of bookings.
+     *
+     * @return ResponseEntity containing the totals per room type with HTTP 200 OK.
+     */
+    @GetMapping(ApiUrls.API_URL_STATS)
+    public ResponseEntity<List<RoomTypeStats>> getRevenueTotals() {
+        return ResponseEntity.ok(bookingService.getRevenueTotals());
+    }
+
+    /**
+     * Reports nights sold, revenue, average nightly rate and occupancy of one night,
+     * for one room type or for all room types.
+     *
+     * @param date the night to report on.
+     * @param roomType the room type, or omitted for all room types.
+     * @return ResponseEntity containing the figures per room type with HTTP 200 OK.
+     */
+    @GetMapping(ApiUrls.API_URL_DAILY_STATS)
+    public ResponseEntity<List<RoomTypeStats>> getDailyStats(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) String roomType) {
+        return ResponseEntity.ok(bookingService.getDailyStats(date, roomType));
+    }
+
+    /**
+     * Recomputes the revenue and occupancy rollups from the stored bookings.
+     * @return ResponseEntity containing the number of bookings included with HTTP 200 OK.
+     */
+    @PostMapping(ApiUrls.API_URL_REBUILD_STATS)
+    public ResponseEntity<Map<String, Long>> rebuildStats() {
+        return ResponseEntity.ok(Map.of("bookings", bookingService.rebuildStats()));
+    }
+
+    /**
+     * Moves bookings that checked out before the archive horizon into the archive table right away,
+     * without waiting for the next scheduled run.
+     * @return ResponseEntity containing the number of bookings archived with HTTP 200 OK.
+     */
+    @PostMapping(ApiUrls.API_URL_ARCHIVE)
+    public ResponseEntity<Map<String, Long>> archiveBookings() {
+        return ResponseEntity.ok(Map.of("archived", bookingArchiver.archive()));
+    }
+
+    /**
+     * Reports the hit, miss and eviction statistics of the booking cache behind {@code GET /bookings/{id}}.
+     * @return ResponseEntity containing the cache statistics with HTTP 200 OK.
+     */
+    @GetMapping(ApiUrls.API_URL_CACHE_STATS)
+    public ResponseEntity<CacheStatistics> getCacheStatistics() {
+        return ResponseEntity.ok(bookingService.getCacheStatistics());
+    }
+
+    /**
+     * Streams booking changes as Server-Sent Events: recent changes from the requested offset first,
+     * then every create, update and archival as it is committed. Clients that reconnect with the
+     * standard {@code Last-Event-ID} header resume after the last change they received.
+     *
+     * @param from the first offset to send; omitted to receive only new changes.
+     * @param lastEventId the offset of the last change received before reconnecting, if any.
+     * @return the event stream, or 429 Too Many Requests if the feed has reached its subscriber limit.
+     */
+    @GetMapping(value = ApiUrls.API_URL_CHANGES, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(required = false) Long from,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return bookingChangeFeed.subscribe(from != null ? from : lastEventId != null ? lastEventId + 1 : null);
+    }
+
+    /**
+     * Exports every booking as NDJSON (one JSON object per line) or CSV.
+     * The body is streamed straight from a database cursor, so the first rows are sent
+     * before the query completes and memory use does not grow with the table size.
+     * The stream may run for {@code hms.export.timeout}; other asynchronous responses keep the default timeout.
+     *
+     * @param format the output format, {@code ndjson} (default) or {@code csv}.
+     * @param request the current request.
+     * @return ResponseEntity wrapping the streaming body with HTTP 200 OK.
+     */
+    @GetMapping(ApiUrls.API_URL_EXPORT_BOOKINGS)
+    public ResponseEntity<StreamingResponseBody> exportBookings(@RequestParam(defaultValue = "ndjson") String format,
+                                                                HttpServletRequest request) {
+        ExportFormat exportFormat = ExportFormat.fromParameter(format);
+        AsyncTimeoutConfig.setAsyncTimeout(request, exportTimeout);
+        StreamingResponseBody body = outputStream -> bookingExportService.exportBookings(exportFormat, outputStream);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=bookings." + exportFormat.getExtension())
+                .body(body);
+    }
+
     /**
      * Updates an existing booking identified by the given ID with the provided booking details.
      * If the booking with the specified ID does not exist, returns a 404 Not Found.
      *
+     * If the body carries a {@code version} that is no longer current, returns a 409 Conflict.
+     *
      * @param id The ID of the booking to update.
      * @param booking The updated booking details.
      * @return ResponseEntity containing the updated booking or an error message.
@@ -92,4 +302,22 @@ public class BookingController {
                         new ResourceNotFoundException("Booking not found with ID: " + id)
                 );
     }
+
+    /**
+     * Partially updates an existing booking, changing only the fields present in the request body.
+     * The update is a single conditional statement; if the body carries a {@code version} that is no
+     * longer current, returns a 409 Conflict. On success the booking's version is incremented by one.
+     *
+     * @param id The ID of the booking to update.
+     * @param patch The fields to change.
+     * @return ResponseEntity with HTTP 204 No Content.
+     * @throws ResourceNotFoundException if no Booking is found with the provided ID.
+     */
+    @PatchMapping(ApiUrls.API_URL_PATCH_BOOKING)
+    public ResponseEntity<Void> patchBooking(@PathVariable Long id, @Validated @RequestBody BookingPatch patch) {
+        if (!bookingService.patchBooking(id, patch)) {
+            throw new ResourceNotFoundException("Booking not found with ID: " + id);
+        }
+        return ResponseEntity.noContent().build();
+    }
 }
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.controller;
+
+import com.hms.model.SnapshotInfo;
+import com.hms.service.FileStoreService;
+import com.hms.utils.ApiUrls;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping(ApiUrls.API_URL_STORE)
+public class StoreController {
+
+    private final FileStoreService fileStoreService;
+
+    @Autowired
+    public StoreController(FileStoreService fileStoreService) {
+        this.fileStoreService = fileStoreService;
+    }
+
+    /**
+     * Writes an online snapshot of the database while it keeps serving requests.
+     * The newest snapshot is restored automatically when the application starts without a database file.
+     * Only available with file-backed storage; otherwise a 400 Bad Request is returned.
+     *
+     * @return ResponseEntity containing the snapshot file name, size and duration with HTTP 200 OK.
+     */
+    @PostMapping(ApiUrls.API_URL_SNAPSHOTS)
+    public ResponseEntity<SnapshotInfo> createSnapshot() {
+        return ResponseEntity.ok(fileStoreService.createSnapshot());
+    }
+
+    /**
+     * Lists the snapshots available for restore, newest first.
+     *
+     * @return ResponseEntity containing the snapshots with HTTP 200 OK.
+     */
+    @GetMapping(ApiUrls.API_URL_SNAPSHOTS)
+    public ResponseEntity<List<SnapshotInfo>> listSnapshots() {
+        return ResponseEntity.ok(fileStoreService.listSnapshots());
+    }
+}
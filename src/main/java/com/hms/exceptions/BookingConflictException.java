@@ -0,0 +1,28 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.exceptions;
+
+/**
+ * Custom exception class to handle booking conflict scenarios.
+ * Thrown when a booking cannot be accepted because it clashes with existing state (e.g., no rooms left).
+ */
+public class BookingConflictException extends RuntimeException {
+    public BookingConflictException(String message) {
+        super(message, null, false, false);
+    }
+}
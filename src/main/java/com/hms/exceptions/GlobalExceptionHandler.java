@@ -14,9 +14,16 @@
  * limitations under the License.
  */
 
+
 package com.hms.exceptions;
 
-import lombok.extern.slf4j.Slf4j;
+import com.hms.metrics.RateLimitedErrorLogger;
+import com.hms.model.ErrorResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -24,23 +31,89 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Maps exceptions to structured {@link ErrorResponse} bodies.
+ * Errors are counted per type and logged through {@link RateLimitedErrorLogger}, so a burst of identical
+ * errors (e.g. a scanner probing unknown IDs) does not turn into a burst of log output.
+ */
 @RestControllerAdvice
-@Slf4j
 public class GlobalExceptionHandler {
+    private final RateLimitedErrorLogger errorLogger;
+    private final String retryAfterSeconds;
+
+    @Autowired
+    public GlobalExceptionHandler(RateLimitedErrorLogger errorLogger,
+                                  @Value("${hms.overload.retry-after:1s}") Duration retryAfter) {
+        this.errorLogger = errorLogger;
+        this.retryAfterSeconds = Long.toString(Math.max(1, retryAfter.toSeconds()));
+    }
 
     /**
      * Handles ResourceNotFoundExceptions across the whole application.
      * @param exception The caught ResourceNotFoundException.
+     * @param request The request that failed.
      * @return A ResponseEntity with a 404 Not Found status and the exception message.
      */
     @ExceptionHandler(ResourceNotFoundException.class)
-    public ResponseEntity<?> handleResourceNotFoundException(ResourceNotFoundException exception) {
-        log.error("Resource Not Found exception occurred: ", exception);
-        return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                .body(exception.getMessage());
+    public ResponseEntity<ErrorResponse> handleResourceNotFoundException(ResourceNotFoundException exception,
+                                                                         HttpServletRequest request) {
+        return respond(HttpStatus.NOT_FOUND, exception, exception.getMessage(), request);
+    }
+
+    /**
+     * Handles InvalidRequestExceptions across the whole application.
+     * @param exception The caught InvalidRequestException.
+     * @param request The request that failed.
+     * @return A ResponseEntity with a 400 Bad Request status and the exception message.
+     */
+    @ExceptionHandler(InvalidRequestException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidRequestException(InvalidRequestException exception,
+                                                                       HttpServletRequest request) {
+        return respond(HttpStatus.BAD_REQUEST, exception, exception.getMessage(), request);
+    }
+
+    /**
+     * Handles BookingConflictExceptions across the whole application.
+     * @param exception The caught BookingConflictException.
+     * @param request The request that failed.
+     * @return A ResponseEntity with a 409 Conflict status and the exception message.
+     */
+    @ExceptionHandler(BookingConflictException.class)
+    public ResponseEntity<ErrorResponse> handleBookingConflictException(BookingConflictException exception,
+                                                                        HttpServletRequest request) {
+        return respond(HttpStatus.CONFLICT, exception, exception.getMessage(), request);
+    }
+
+    /**
+     * Handles TooManyRequestsExceptions across the whole application.
+     * @param exception The caught TooManyRequestsException.
+     * @param request The request that failed.
+     * @return A ResponseEntity with a 429 Too Many Requests status, a Retry-After header and the exception message.
+     */
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ErrorResponse> handleTooManyRequestsException(TooManyRequestsException exception,
+                                                                        HttpServletRequest request) {
+        errorLogger.warn(exception, HttpStatus.TOO_MANY_REQUESTS.value());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, retryAfterSeconds)
+                .body(body(HttpStatus.TOO_MANY_REQUESTS, exception.getMessage(), request, null));
+    }
+
+    /**
+     * Handles OptimisticLockingFailureExceptions raised when a booking was changed by a concurrent update.
+     * @param exception The caught OptimisticLockingFailureException.
+     * @param request The request that failed.
+     * @return A ResponseEntity with a 409 Conflict status and an explanatory message.
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> handleOptimisticLockingFailureException(
+            OptimisticLockingFailureException exception, HttpServletRequest request) {
+        return respond(HttpStatus.CONFLICT, exception,
+                "The booking was modified concurrently; reload it and try again", request);
     }
 
     /**
@@ -49,11 +122,13 @@ public class GlobalExceptionHandler {
      * It extracts and formats validation error messages, mapping them to their respective field names.
      *
      * @param exception The MethodArgumentNotValidException containing details about the validation errors.
-     * @return A ResponseEntity containing a map of field names to validation error messages and the HTTP status BAD_REQUEST.
+     * @param request The request that failed.
+     * @return A ResponseEntity with the HTTP status BAD_REQUEST whose details map field names to validation error messages.
      */
     @ExceptionHandler(MethodArgumentNotValidException.class)
-    public ResponseEntity<Map<String, String>> handleValidationExceptions(MethodArgumentNotValidException exception) {
-        log.error("Validation exception occurred: ", exception);
+    public ResponseEntity<ErrorResponse> handleValidationExceptions(MethodArgumentNotValidException exception,
+                                                                    HttpServletRequest request) {
+        errorLogger.warn(exception, HttpStatus.BAD_REQUEST.value());
 
         Map<String, String> errors = new HashMap<>();
         exception.getBindingResult().getAllErrors().forEach(error -> {
@@ -61,7 +136,8 @@ public class GlobalExceptionHandler {
             String errorMessage = error.getDefaultMessage();
             errors.put(fieldName, errorMessage);
         });
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errors);
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(body(HttpStatus.BAD_REQUEST, "Validation failed", request, errors));
     }
 
     /**
@@ -70,15 +146,25 @@ public class GlobalExceptionHandler {
      * This method catches any exception not specifically handled by other @ExceptionHandler methods.
      *
      * @param exception the caught exception
+     * @param request The request that failed.
      * @return a ResponseEntity containing the error message and HTTP status code
      */
     @ExceptionHandler(Exception.class)
-    public ResponseEntity<?> handleException(Exception exception) {
-        log.error("Unhandled exception occurred: ", exception);
-        return new ResponseEntity<>(
-                "An error occurred: " + exception.getMessage(),
-                HttpStatus.INTERNAL_SERVER_ERROR
-        );
+    public ResponseEntity<ErrorResponse> handleException(Exception exception, HttpServletRequest request) {
+        errorLogger.error(exception, HttpStatus.INTERNAL_SERVER_ERROR.value());
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(body(HttpStatus.INTERNAL_SERVER_ERROR, "An error occurred: " + exception.getMessage(),
+                        request, null));
     }
 
+    private ResponseEntity<ErrorResponse> respond(HttpStatus status, Exception exception, String message,
+                                                  HttpServletRequest request) {
+        errorLogger.warn(exception, status.value());
+        return ResponseEntity.status(status).body(body(status, message, request, null));
+    }
+
+    private static ErrorResponse body(HttpStatus status, String message, HttpServletRequest request,
+                                      Map<String, String> details) {
+        return new ErrorResponse(status.value(), status.getReasonPhrase(), message, request.getRequestURI(), details);
+    }
 }
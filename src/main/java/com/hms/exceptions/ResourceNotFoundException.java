@@ -19,9 +19,11 @@ package com.hms.exceptions;
 /**
  * Custom exception class to handle resource not found scenarios.
  * Thrown when a requested resource (e.g., Booking) is not found in the database.
+ * Like the other domain exceptions it carries no stack trace: it reports an expected outcome of a request,
+ * and filling in the stack on every lookup of an unknown ID is wasted work.
  */
 public class ResourceNotFoundException extends RuntimeException {
     public ResourceNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
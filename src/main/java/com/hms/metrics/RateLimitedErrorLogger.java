@@ -0,0 +1,128 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts error responses per exception type and status in {@code hms.errors}, and logs at most
+ * {@code hms.errors.log.max-per-interval} of each type per {@code hms.errors.log.interval}.
+ * The first message logged after a quiet spell reports how many similar errors were left out,
+ * so a flood of identical errors costs a counter increment per request instead of a log line.
+ */
+@Component
+@Slf4j
+public class RateLimitedErrorLogger {
+    private final MeterRegistry meterRegistry;
+    private final int maxPerInterval;
+    private final long intervalNanos;
+    private final Map<String, ErrorType> errorTypes = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RateLimitedErrorLogger(MeterRegistry meterRegistry,
+                                  @Value("${hms.errors.log.max-per-interval:5}") int maxPerInterval,
+                                  @Value("${hms.errors.log.interval:10s}") Duration interval) {
+        this.meterRegistry = meterRegistry;
+        this.maxPerInterval = maxPerInterval;
+        this.intervalNanos = interval.toNanos();
+    }
+
+    /**
+     * Per exception type and status: its counter and the log budget of the current interval.
+     */
+    private static final class ErrorType {
+        private final Counter counter;
+        private final AtomicInteger loggedInInterval = new AtomicInteger();
+        private final AtomicLong suppressed = new AtomicLong();
+        private volatile long intervalStart = System.nanoTime();
+
+        private ErrorType(Counter counter) {
+            this.counter = counter;
+        }
+    }
+
+    /**
+     * Records an error that is an expected outcome of a request, logging its message at WARN level within the budget.
+     * @param exception the exception being handled.
+     * @param status the HTTP status returned for it.
+     */
+    public void warn(Exception exception, int status) {
+        long suppressed = record(exception, status);
+        if (suppressed >= 0) {
+            log.warn("{} ({}): {}{}", exception.getClass().getSimpleName(), status, exception.getMessage(),
+                    suppressedNote(suppressed));
+        }
+    }
+
+    /**
+     * Records an unexpected error, logging it with its stack trace at ERROR level within the budget.
+     * @param exception the exception being handled.
+     * @param status the HTTP status returned for it.
+     */
+    public void error(Exception exception, int status) {
+        long suppressed = record(exception, status);
+        if (suppressed >= 0) {
+            log.error("Unhandled exception occurred{}: ", suppressedNote(suppressed), exception);
+        }
+    }
+
+    /**
+     * Counts the error and takes one unit of its log budget.
+     * @return the number of errors of this type suppressed since the last one logged, or -1 if this one must not be logged.
+     */
+    private long record(Exception exception, int status) {
+        String type = exception.getClass().getSimpleName();
+        ErrorType errorType = errorTypes.computeIfAbsent(type + ':' + status, key -> new ErrorType(
+                Counter.builder("hms.errors")
+                        .description("Error responses by exception type and HTTP status")
+                        .tag("type", type)
+                        .tag("status", Integer.toString(status))
+                        .register(meterRegistry)));
+        errorType.counter.increment();
+
+        long now = System.nanoTime();
+        if (now - errorType.intervalStart >= intervalNanos) {
+            synchronized (errorType) {
+                if (now - errorType.intervalStart >= intervalNanos) {
+                    errorType.intervalStart = now;
+                    errorType.loggedInInterval.set(0);
+                }
+            }
+        }
+        if (errorType.loggedInInterval.incrementAndGet() > maxPerInterval) {
+            errorType.suppressed.incrementAndGet();
+            return -1;
+        }
+        return errorType.suppressed.getAndSet(0);
+    }
+
+    private static String suppressedNote(long suppressed) {
+        return suppressed == 0 ? "" : " (" + suppressed + " similar errors not logged)";
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * A booking moved out of the hot {@link Booking} table after its stay ended, keeping its original ID.
+ * Archived bookings are read-only.
+ */
+@Entity
+@Table(name = "booking_archive", indexes = {
+        @Index(name = "idx_booking_archive_room_type_check_in", columnList = "room_type, check_in_date"),
+        @Index(name = "idx_booking_archive_room_type_id", columnList = "room_type, id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedBooking {
+    @Id
+    private Long id;
+    private String customerName;
+    @Column(name = "room_type")
+    private String roomType;
+    @Column(name = "check_in_date")
+    private Date checkInDate;
+    private Date checkOutDate;
+    private float totalPrice;
+    private Long version;
+    private Date archivedAt;
+
+    /**
+     * @return the archived booking in the form served by the API.
+     */
+    public Booking toBooking() {
+        return new Booking(id, customerName, roomType, checkInDate, checkOutDate, totalPrice, version, null);
+    }
+}
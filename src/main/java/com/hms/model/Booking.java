@@ -17,6 +17,7 @@
 package com.hms.model;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotNull;
@@ -27,7 +28,13 @@ import lombok.NoArgsConstructor;
 import java.util.Date;
 
 @Entity
-@Table
+@Table(indexes = {
+        @Index(name = "idx_booking_customer_name_key", columnList = "customer_name_key"),
+        @Index(name = "idx_booking_room_type_check_in", columnList = "room_type, check_in_date"),
+        @Index(name = "idx_booking_room_type_id", columnList = "room_type, id"),
+        @Index(name = "idx_booking_check_in", columnList = "check_in_date"),
+        @Index(name = "idx_booking_check_out", columnList = "check_out_date")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -36,7 +43,7 @@ public class Booking {
     @SequenceGenerator(
             name = "booking_sequence",
             sequenceName = "booking_sequence",
-            allocationSize = 1
+            allocationSize = 50
     )
     @GeneratedValue(
             strategy = GenerationType.SEQUENCE,
@@ -46,12 +53,21 @@ public class Booking {
     @NotNull(message = "Customer name cannot be null")
     private String customerName;
     @NotNull(message = "Room type cannot be null")
-
+    @Column(name = "room_type")
     private String roomType;
     @JsonFormat(pattern="yyyy-MM-dd HH:mm:ss")
+    @Column(name = "check_in_date")
     private Date checkInDate;
     @JsonFormat(pattern="yyyy-MM-dd HH:mm:ss")
+    @Column(name = "check_out_date")
     private Date checkOutDate;
     @DecimalMin(value = "0.0", inclusive = false, message = "Total price must be greater than 0")
     private float totalPrice;
+    @Version
+    private Long version;
+    // Lower-cased customer name maintained by the database, indexed for case-insensitive prefix search
+    @JsonIgnore
+    @Column(name = "customer_name_key", insertable = false, updatable = false,
+            columnDefinition = "VARCHAR(255) GENERATED ALWAYS AS (LOWER(customer_name))")
+    private String customerNameKey;
 }
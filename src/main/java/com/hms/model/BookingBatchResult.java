@@ -0,0 +1,56 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Summary and per-item results of a batch booking request.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingBatchResult {
+    private int created;
+    private int rejected;
+    private int failed;
+    private List<BatchItemResult> results;
+
+    /**
+     * Builds a summary by tallying the status of each item result.
+     * @param results the per-item results, in request order.
+     * @return the batch summary.
+     */
+    public static BookingBatchResult of(List<BatchItemResult> results) {
+        int created = 0;
+        int rejected = 0;
+        int failed = 0;
+        for (BatchItemResult result : results) {
+            switch (result.getStatus()) {
+                case CREATED -> created++;
+                case REJECTED -> rejected++;
+                case FAILED -> failed++;
+            }
+        }
+        return new BookingBatchResult(created, rejected, failed, results);
+    }
+}
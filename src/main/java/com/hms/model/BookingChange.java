@@ -0,0 +1,52 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * One entry of the booking change feed. Offsets increase by one with every change, so a subscriber can
+ * resume after the last offset it has seen. {@code booking} is set for creations and full updates,
+ * {@code patch} for partial updates; archivals carry only the booking ID.
+ * <p>
+ * Offsets follow the order changes reached the feed, which for concurrent writes to the same booking can
+ * differ from the order they committed in. {@code version} is the booking's version after the change and
+ * is what orders the changes of one booking: a change with a lower version than one already applied is stale.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BookingChange {
+    public enum Type {
+        CREATED, UPDATED, PATCHED, ARCHIVED
+    }
+
+    private long offset;
+    private Type type;
+    private Long bookingId;
+    private Booking booking;
+    private BookingPatch patch;
+    private Long version;
+    private Instant occurredAt;
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.validation.constraints.DecimalMin;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * Partial update of a booking. Only non-null fields are applied.
+ * When {@code version} is set, the update only succeeds if the stored booking still has that version.
+ */
+@Data
+@NoArgsConstructor
+public class BookingPatch {
+    private String customerName;
+    private String roomType;
+    @JsonFormat(pattern="yyyy-MM-dd HH:mm:ss")
+    private Date checkInDate;
+    @JsonFormat(pattern="yyyy-MM-dd HH:mm:ss")
+    private Date checkOutDate;
+    @DecimalMin(value = "0.0", inclusive = false, message = "Total price must be greater than 0")
+    private Float totalPrice;
+    private Long version;
+}
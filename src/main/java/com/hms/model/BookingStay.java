@@ -0,0 +1,40 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * The room type, dates, price and version of a booking, selected directly as a projection when the in-memory
+ * indexes are rebuilt, so that no booking has to be loaded as an entity.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingStay {
+    private Long id;
+    private String roomType;
+    private Date checkInDate;
+    private Date checkOutDate;
+    private float totalPrice;
+    private Long version;
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Revenue and occupancy figures of a room type, either for a single night or over all bookings.
+ * {@code date} and {@code occupancy} are only set for a single night.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoomTypeStats {
+    private String roomType;
+    private LocalDate date;
+    private long nightsSold;
+    private double revenue;
+    private double averageRate;
+    private Double occupancy;
+}
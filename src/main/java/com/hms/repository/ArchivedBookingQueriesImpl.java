@@ -0,0 +1,60 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.repository;
+
+import com.hms.model.ArchivedBooking;
+import com.hms.model.BookingSummary;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Date;
+import java.util.List;
+
+class ArchivedBookingQueriesImpl implements ArchivedBookingQueries {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ArchivedBooking> findPageAfter(long afterId, String roomType, Date checkInFrom, Date checkInBefore,
+                                               Pageable pageable) {
+        return new KeysetQuery("SELECT a FROM ArchivedBooking a", "a", afterId)
+                .andEqual("a.roomType", "roomType", roomType)
+                .and("a.checkInDate >= :checkInFrom", "checkInFrom", checkInFrom)
+                .and("a.checkInDate < :checkInBefore", "checkInBefore", checkInBefore)
+                .fetch(entityManager, ArchivedBooking.class, pageable.getPageSize());
+    }
+
+    @Override
+    public List<BookingSummary> search(long afterId, String customerNameKeyPrefix, String roomType,
+                                       Date checkInFrom, Date checkInBefore, Date checkOutFrom, Date checkOutBefore,
+                                       Pageable pageable) {
+        return new KeysetQuery("""
+                SELECT new com.hms.model.BookingSummary(
+                    a.id, a.customerName, a.roomType, a.checkInDate, a.checkOutDate, a.totalPrice)
+                FROM ArchivedBooking a""", "a", afterId)
+                .andStartsWith("LOWER(a.customerName)", "customerNameKeyPrefix", customerNameKeyPrefix)
+                .andEqual("a.roomType", "roomType", roomType)
+                .and("a.checkInDate >= :checkInFrom", "checkInFrom", checkInFrom)
+                .and("a.checkInDate < :checkInBefore", "checkInBefore", checkInBefore)
+                .and("a.checkOutDate >= :checkOutFrom", "checkOutFrom", checkOutFrom)
+                .and("a.checkOutDate < :checkOutBefore", "checkOutBefore", checkOutBefore)
+                .fetch(entityManager, BookingSummary.class, pageable.getPageSize());
+    }
+}
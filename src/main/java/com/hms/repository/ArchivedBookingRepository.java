@@ -0,0 +1,66 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.repository;
+
+import com.hms.model.ArchivedBooking;
+import com.hms.model.BookingStay;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.stream.Stream;
+
+@Repository
+public interface ArchivedBookingRepository extends JpaRepository<ArchivedBooking, Long>, ArchivedBookingQueries {
+
+    /**
+     * Copies bookings from the hot table into the archive in a single statement, keeping their IDs.
+     *
+     * @param ids the IDs of the bookings to copy.
+     * @param archivedAt the archival time recorded on each copy.
+     * @return the number of bookings copied.
+     */
+    @Modifying
+    @Query("""
+            INSERT INTO ArchivedBooking (id, customerName, roomType, checkInDate, checkOutDate, totalPrice, version, archivedAt)
+            SELECT b.id, b.customerName, b.roomType, b.checkInDate, b.checkOutDate, b.totalPrice, b.version, :archivedAt
+            FROM Booking b
+            WHERE b.id IN :ids
+            """)
+    int copyFromBookings(@Param("ids") Collection<Long> ids, @Param("archivedAt") Date archivedAt);
+
+    /**
+     * Streams the room type, dates, price and version of every archived booking without loading entities.
+     * Must be consumed inside a read-only transaction and closed afterwards.
+     *
+     * @return a lazily populated stream of all archived stays.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("""
+            SELECT new com.hms.model.BookingStay(a.id, a.roomType, a.checkInDate, a.checkOutDate, a.totalPrice, a.version)
+            FROM ArchivedBooking a
+            """)
+    Stream<BookingStay> streamStays();
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.repository;
+
+import com.hms.model.Booking;
+import com.hms.model.BookingSummary;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Keyset-paginated booking queries with optional filters. Only the filters that are supplied become part of
+ * the query, so each can be served by its index; see {@link KeysetQuery}.
+ */
+public interface BookingQueries {
+
+    /**
+     * Fetches the next keyset page of bookings ordered by ID.
+     * Every filter is optional and left out of the query when null.
+     *
+     * @param afterId only bookings with an ID greater than this are returned.
+     * @param roomType the room type to match, or null for any.
+     * @param checkInFrom inclusive lower bound on the check-in date, or null for none.
+     * @param checkInBefore exclusive upper bound on the check-in date, or null for none.
+     * @param pageable carries the maximum number of rows to return.
+     * @return up to {@code pageable.getPageSize()} bookings in ascending ID order.
+     */
+    List<Booking> findPageAfter(long afterId, String roomType, Date checkInFrom, Date checkInBefore, Pageable pageable);
+
+    /**
+     * Searches bookings by customer name prefix, room type and stay dates, returning the next keyset page
+     * of summaries ordered by ID. Every predicate is optional and left out of the query when null;
+     * each is backed by an index.
+     *
+     * @param afterId only bookings with an ID greater than this are returned.
+     * @param customerNameKeyPrefix a prefix of the lower-cased customer name, or null for any.
+     * @param roomType the room type to match, or null for any.
+     * @param checkInFrom inclusive lower bound on the check-in date, or null for none.
+     * @param checkInBefore exclusive upper bound on the check-in date, or null for none.
+     * @param checkOutFrom inclusive lower bound on the check-out date, or null for none.
+     * @param checkOutBefore exclusive upper bound on the check-out date, or null for none.
+     * @param pageable carries the maximum number of rows to return.
+     * @return up to {@code pageable.getPageSize()} booking summaries in ascending ID order.
+     */
+    List<BookingSummary> search(long afterId, String customerNameKeyPrefix, String roomType,
+                                Date checkInFrom, Date checkInBefore, Date checkOutFrom, Date checkOutBefore,
+                                Pageable pageable);
+}
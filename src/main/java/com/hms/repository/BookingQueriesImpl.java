@@ -0,0 +1,63 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.repository;
+
+import com.hms.model.Booking;
+import com.hms.model.BookingSummary;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Implements {@link BookingQueries} for {@link BookingRepository}.
+ */
+class BookingQueriesImpl implements BookingQueries {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Booking> findPageAfter(long afterId, String roomType, Date checkInFrom, Date checkInBefore,
+                                       Pageable pageable) {
+        return new KeysetQuery("SELECT b FROM Booking b", "b", afterId)
+                .andEqual("b.roomType", "roomType", roomType)
+                .and("b.checkInDate >= :checkInFrom", "checkInFrom", checkInFrom)
+                .and("b.checkInDate < :checkInBefore", "checkInBefore", checkInBefore)
+                .fetch(entityManager, Booking.class, pageable.getPageSize());
+    }
+
+    @Override
+    public List<BookingSummary> search(long afterId, String customerNameKeyPrefix, String roomType,
+                                       Date checkInFrom, Date checkInBefore, Date checkOutFrom, Date checkOutBefore,
+                                       Pageable pageable) {
+        return new KeysetQuery("""
+                SELECT new com.hms.model.BookingSummary(
+                    b.id, b.customerName, b.roomType, b.checkInDate, b.checkOutDate, b.totalPrice)
+                FROM Booking b""", "b", afterId)
+                .andStartsWith("b.customerNameKey", "customerNameKeyPrefix", customerNameKeyPrefix)
+                .andEqual("b.roomType", "roomType", roomType)
+                .and("b.checkInDate >= :checkInFrom", "checkInFrom", checkInFrom)
+                .and("b.checkInDate < :checkInBefore", "checkInBefore", checkInBefore)
+                .and("b.checkOutDate >= :checkOutFrom", "checkOutFrom", checkOutFrom)
+                .and("b.checkOutDate < :checkOutBefore", "checkOutBefore", checkOutBefore)
+                .fetch(entityManager, BookingSummary.class, pageable.getPageSize());
+    }
+}
@@ -14,12 +14,95 @@
  * limitations under the License.
  */
 
+
 package com.hms.repository;
 
 import com.hms.model.Booking;
+import com.hms.model.BookingStay;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
 @Repository
-public interface BookingRepository extends JpaRepository<Booking, Long> {
+public interface BookingRepository extends JpaRepository<Booking, Long>, BookingQueries {
+
+    /**
+     * Streams every booking in ID order through a forward-only, read-only cursor.
+     * Must be consumed inside a read-only transaction and closed afterwards.
+     *
+     * @return a lazily populated stream of all bookings.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT b FROM Booking b ORDER BY b.id ASC")
+    Stream<Booking> streamAll();
+
+    /**
+     * Streams the room type, dates, price and version of every booking, in no particular order, without loading entities.
+     * Must be consumed inside a read-only transaction and closed afterwards.
+     *
+     * @return a lazily populated stream of all booked stays.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("""
+            SELECT new com.hms.model.BookingStay(b.id, b.roomType, b.checkInDate, b.checkOutDate, b.totalPrice, b.version)
+            FROM Booking b
+            """)
+    Stream<BookingStay> streamStays();
+
+    /**
+     * Applies a partial update in a single conditional UPDATE statement, without loading the booking first.
+     * Null arguments leave the corresponding column unchanged. The version is always incremented.
+     * The UPDATE is wrapped in an H2 data change delta table, so the new version comes back from the same
+     * statement. Must be called inside a transaction.
+     *
+     * @param id the ID of the booking to update.
+     * @param expectedVersion the version the booking must currently have, or null to skip the check.
+     * @return the version the booking has after the update, or null if the booking does not exist or its version differs.
+     */
+    @Query(nativeQuery = true, value = """
+            SELECT version FROM FINAL TABLE (
+                UPDATE booking SET
+                    customer_name = COALESCE(:customerName, customer_name),
+                    room_type = COALESCE(:roomType, room_type),
+                    check_in_date = COALESCE(:checkInDate, check_in_date),
+                    check_out_date = COALESCE(:checkOutDate, check_out_date),
+                    total_price = COALESCE(:totalPrice, total_price),
+                    version = version + 1
+                WHERE id = :id
+                  AND (:expectedVersion IS NULL OR version = :expectedVersion)
+            )
+            """)
+    Long patch(@Param("id") Long id,
+              @Param("customerName") String customerName,
+              @Param("roomType") String roomType,
+              @Param("checkInDate") Date checkInDate,
+              @Param("checkOutDate") Date checkOutDate,
+              @Param("totalPrice") Float totalPrice,
+              @Param("expectedVersion") Long expectedVersion);
+
+    /**
+     * Locks and returns the IDs of bookings that checked out before the cutoff, oldest IDs first.
+     * The row locks keep concurrent updates out until the archiving transaction has moved the bookings.
+     *
+     * @param cutoff bookings with a check-out date before this are returned.
+     * @param pageable carries the maximum number of IDs to return.
+     * @return up to {@code pageable.getPageSize()} booking IDs in ascending order.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b.id FROM Booking b WHERE b.checkOutDate < :cutoff ORDER BY b.id ASC")
+    List<Long> lockCheckedOutBefore(@Param("cutoff") Date cutoff, Pageable pageable);
 }
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds a keyset-paginated JPQL query from only the filters that were supplied.
+ * Catch-all predicates of the form {@code (:param IS NULL OR column = :param)} leave the database no index
+ * to plan with, so every optional filter is emitted only when its value is present.
+ * <p>
+ * Columns filtered for equality lead the ORDER BY. That does not change the order, as each has a single value,
+ * but it lets the database seek on a {@code (column, id)} index to the cursor and stop after one page.
+ */
+final class KeysetQuery {
+    private final String selectFrom;
+    private final String alias;
+    private final long afterId;
+    private final List<String> conditions = new ArrayList<>();
+    private final List<String> equalityPaths = new ArrayList<>();
+    private final Map<String, Object> parameters = new LinkedHashMap<>();
+
+    /**
+     * @param selectFrom the SELECT and FROM clauses, without WHERE.
+     * @param alias the alias of the paginated entity in the FROM clause.
+     * @param afterId only rows with an ID greater than this are returned.
+     */
+    KeysetQuery(String selectFrom, String alias, long afterId) {
+        this.selectFrom = selectFrom;
+        this.alias = alias;
+        this.afterId = afterId;
+    }
+
+    /**
+     * Adds a condition on one parameter, unless its value is null.
+     *
+     * @param condition the JPQL condition, referring to the parameter by name.
+     * @param parameter the parameter name.
+     * @param value the parameter value, or null to leave the condition out.
+     * @return this query.
+     */
+    KeysetQuery and(String condition, String parameter, Object value) {
+        if (value != null) {
+            conditions.add(condition);
+            parameters.put(parameter, value);
+        }
+        return this;
+    }
+
+    /**
+     * Adds a condition that a column equals a value, unless the value is null.
+     *
+     * @param path the JPQL expression to compare, backed by an index that ends in the ID.
+     * @param parameter the parameter name.
+     * @param value the value, or null to leave the condition out.
+     * @return this query.
+     */
+    KeysetQuery andEqual(String path, String parameter, Object value) {
+        if (value != null) {
+            and(path + " = :" + parameter, parameter, value);
+            equalityPaths.add(path);
+        }
+        return this;
+    }
+
+    /**
+     * Adds a condition that a string starts with a prefix, unless the prefix is null.
+     * The prefix is bound as a closed range rather than a LIKE pattern: with a bound LIKE parameter
+     * H2 only derives the lower end of the index range and scans from there to the end of the index.
+     *
+     * @param path the JPQL expression to match.
+     * @param parameter the parameter name; a second parameter with the suffix {@code End} is added.
+     * @param prefix the prefix, or null to leave the condition out.
+     * @return this query.
+     */
+    KeysetQuery andStartsWith(String path, String parameter, String prefix) {
+        if (prefix == null) {
+            return this;
+        }
+        and(path + " >= :" + parameter, parameter, prefix);
+        String end = prefixEnd(prefix);
+        if (end != null) {
+            and(path + " < :" + parameter + "End", parameter + "End", end);
+        }
+        return this;
+    }
+
+    /**
+     * Runs the query, ordered by ID.
+     *
+     * @param entityManager the entity manager to run the query with.
+     * @param resultType the type of the selected rows.
+     * @param limit the maximum number of rows to return.
+     * @return up to {@code limit} rows in ascending ID order.
+     */
+    <T> List<T> fetch(EntityManager entityManager, Class<T> resultType, int limit) {
+        List<String> where = new ArrayList<>(conditions);
+        if (afterId > 0) {
+            // Ranges cannot be read from an index in ID order, so H2 would rather walk the primary key from the
+            // cursor, however few rows match. Comparing the ID through an expression keeps the range's index in use.
+            boolean rangesOnly = !conditions.isEmpty() && equalityPaths.isEmpty();
+            where.add(alias + (rangesOnly ? ".id + 0" : ".id") + " > :afterId");
+        }
+        StringBuilder jpql = new StringBuilder(selectFrom);
+        if (!where.isEmpty()) {
+            jpql.append(" WHERE ").append(String.join(" AND ", where));
+        }
+        jpql.append(" ORDER BY ");
+        equalityPaths.forEach(path -> jpql.append(path).append(" ASC, "));
+        jpql.append(alias).append(".id ASC");
+
+        TypedQuery<T> query = entityManager.createQuery(jpql.toString(), resultType);
+        parameters.forEach(query::setParameter);
+        if (afterId > 0) {
+            query.setParameter("afterId", afterId);
+        }
+        return query.setMaxResults(limit).getResultList();
+    }
+
+    /**
+     * Returns the smallest string greater than every string starting with the prefix, or null if there is none.
+     */
+    private static String prefixEnd(String prefix) {
+        int last = prefix.length() - 1;
+        while (last >= 0 && prefix.charAt(last) == Character.MAX_VALUE) {
+            last--;
+        }
+        if (last < 0) {
+            return null;
+        }
+        return prefix.substring(0, last) + (char) (prefix.charAt(last) + 1);
+    }
+}
@@ -0,0 +1,755 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.service;
+
+import com.hms.config.InventoryProperties;
+import com.hms.exceptions.BookingConflictException;
+import com.hms.exceptions.InvalidRequestException;
+import com.hms.exceptions.ResourceNotFoundException;
+import com.hms.exceptions.TooManyRequestsException;
+import com.hms.model.Availability;
+import com.hms.model.Booking;
+import com.hms.model.BookingStay;
+import com.hms.model.InventoryHold;
+import com.hms.repository.BookingRepository;
+import com.hms.utils.DateUtils;
+import com.hms.utils.OccupancyTree;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * In-memory index of room occupancy per room type and night.
+ * Each room type has an {@link OccupancyTree} counting the bookings that cover each night,
+ * so overlap and free-capacity questions are answered in O(log n) without touching the database.
+ * <p>
+ * The index is rebuilt from the repository on startup and kept current by {@link BookingService}:
+ * writes first {@link #reserve(Booking) reserve} capacity, then {@link #confirm(Reservation, Long) confirm}
+ * the reservation once the booking is stored, or {@link #cancel(Reservation) cancel} it if storing fails.
+ * <p>
+ * Each room type has its own calendar and lock, so writes to different room types never contend; writes to the
+ * same room type are checked and applied atomically, which rules out overbooking. Rooms can also be
+ * {@link #hold held} for a short time before the booking is made; holds that are not claimed expire.
+ * <p>
+ * Every outstanding reservation holds a write permit. A {@link #rebuild() rebuild} takes all of them, so it
+ * starts once the reservations in flight are settled and turns new writes away until the fresh index is
+ * swapped in. Availability reads keep answering from the previous index meanwhile.
+ */
+@Component
+@Slf4j
+public class AvailabilityIndex {
+    private static final long CLAIM_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final BookingRepository bookingRepository;
+    private final InventoryProperties inventoryProperties;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    // Replaced as a whole by rebuild; only read by writers while they hold a write permit
+    private volatile Map<String, RoomTypeCalendar> calendars = new ConcurrentHashMap<>();
+    private volatile Map<Long, Stay> stays = new ConcurrentHashMap<>();
+    // Fair, so that a waiting rebuild is not starved by a steady stream of new reservations
+    private final Semaphore writePermits = new Semaphore(Integer.MAX_VALUE, true);
+    // Bookings with an outstanding reservation; their indexed stay may only be read and replaced by its holder
+    private final Set<Long> claimedBookings = ConcurrentHashMap.newKeySet();
+    // Capacities raised at runtime, e.g. for seeded bookings, by calendar key; the bound configuration stays as is
+    private final Map<String, Integer> raisedCapacities = new ConcurrentHashMap<>();
+    private final Map<String, HeldStay> holds = new ConcurrentHashMap<>();
+    private final Counter expiredHolds;
+    private final ScheduledExecutorService holdExpiryExecutor;
+
+    @Autowired
+    public AvailabilityIndex(BookingRepository bookingRepository,
+                             InventoryProperties inventoryProperties,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry) {
+        this.bookingRepository = bookingRepository;
+        this.inventoryProperties = inventoryProperties;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        Gauge.builder("hms.inventory.holds.active", holds, Map::size)
+                .description("Rooms currently held and not yet booked")
+                .register(meterRegistry);
+        this.expiredHolds = Counter.builder("hms.inventory.holds.expired")
+                .description("Holds released because they were not claimed in time")
+                .register(meterRegistry);
+        this.holdExpiryExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "inventory-hold-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long sweepMillis = inventoryProperties.getHoldSweepInterval().toMillis();
+        holdExpiryExecutor.scheduleWithFixedDelay(this::expireHolds, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        holdExpiryExecutor.shutdownNow();
+    }
+
+    /**
+     * The nights a booking occupies in one room type, as epoch days {@code [startDay, endDay)}.
+     * The room type is always the canonical spelling of its calendar, see {@link #stayOf(Map, String, long, long)}.
+     */
+    record Stay(String roomType, long startDay, long endDay) {
+
+        static Stay of(String roomType, long startDay, long endDay) {
+            if (endDay < startDay) {
+                throw new InvalidRequestException("Check-out date must not be before check-in date");
+            }
+            return new Stay(roomType, startDay, Math.max(endDay, startDay + 1)).checked();
+        }
+
+        static long epochDay(Date date) {
+            return DateUtils.toLocalDate(date).toEpochDay();
+        }
+
+        private Stay checked() {
+            if (startDay < 0 || endDay > OccupancyTree.MAX_DAY) {
+                throw new InvalidRequestException("Stay dates are out of the supported range");
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Capacity held for a pending write, together with the stay it replaces.
+     * A reservation for an existing booking also claims the booking until it is confirmed or cancelled.
+     */
+    public static final class Reservation {
+        private final Long claimedBookingId;
+        private final Stay previous;
+        private final Stay reserved;
+        private final AtomicBoolean settled = new AtomicBoolean();
+
+        private Reservation(Long claimedBookingId, Stay previous, Stay reserved) {
+            this.claimedBookingId = claimedBookingId;
+            this.previous = previous;
+            this.reserved = reserved;
+        }
+    }
+
+    /**
+     * A held stay and the {@link System#nanoTime()} after which it expires.
+     */
+    private record HeldStay(InventoryHold hold, Stay stay, long expiresAtNanos) {
+
+        boolean expired(long now) {
+            return now - expiresAtNanos >= 0;
+        }
+    }
+
+    private static final class RoomTypeCalendar {
+        // The canonical spelling of the room type
+        final String roomType;
+        final OccupancyTree occupancy = new OccupancyTree();
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        RoomTypeCalendar(String roomType) {
+            this.roomType = roomType;
+        }
+    }
+
+    /**
+     * Reserves a room for the booking's stay, releasing the stay currently held under the same booking ID.
+     * The check and the reservation happen atomically per room type.
+     *
+     * @param booking the booking about to be written.
+     * @return the reservation to confirm or cancel once the write completes.
+     * @throws BookingConflictException if the room type is fully booked on any night of the stay,
+     * or another write to the same booking is still in progress.
+     * @throws TooManyRequestsException if the index is being rebuilt.
+     */
+    public Reservation reserve(Booking booking) {
+        acquireWritePermit();
+        try {
+            Stay stay = stayOf(calendars, booking);
+            if (booking.getId() == null) {
+                return reserve(null, null, stay);
+            }
+            return reserveClaimed(booking.getId(), previous -> stay);
+        } catch (RuntimeException exception) {
+            writePermits.release();
+            throw exception;
+        }
+    }
+
+    /**
+     * Reserves a room for a partial update of a booking, merging the changed fields with the stay
+     * currently indexed for it. Used when the stored booking is not loaded before the update.
+     * Nothing is reserved if none of the fields change or the resulting stay cannot be determined, but a booking
+     * whose stay is unchanged is still claimed, so that the update is ordered against other writes to it.
+     *
+     * @param bookingId the ID of the booking being updated.
+     * @param roomType the new room type, or null if unchanged.
+     * @param checkIn the new check-in date, or null if unchanged.
+     * @param checkOut the new check-out date, or null if unchanged.
+     * @return the reservation to confirm or cancel once the update completes.
+     * @throws BookingConflictException if the room type is fully booked on any night of the new stay,
+     * or another write to the same booking is still in progress.
+     * @throws TooManyRequestsException if the index is being rebuilt.
+     */
+    public Reservation reserve(Long bookingId, String roomType, Date checkIn, Date checkOut) {
+        acquireWritePermit();
+        try {
+            if (roomType == null && checkIn == null && checkOut == null) {
+                claim(bookingId);
+                return new Reservation(bookingId, null, null);
+            }
+            return reserveClaimed(bookingId, previous -> {
+                if (previous == null && (roomType == null || checkIn == null || checkOut == null)) {
+                    return null;
+                }
+                return stayOf(calendars,
+                        roomType != null ? roomType : previous.roomType(),
+                        checkIn != null ? Stay.epochDay(checkIn) : previous.startDay(),
+                        checkOut != null ? Stay.epochDay(checkOut) : previous.endDay()
+                );
+            });
+        } catch (RuntimeException exception) {
+            writePermits.release();
+            throw exception;
+        }
+    }
+
+    /**
+     * Claims an existing booking, then replaces its indexed stay with the one derived from it.
+     * The claim makes the read of the previous stay and its replacement atomic with respect to other writes
+     * to the same booking: without it, two concurrent updates would both release the same previous stay.
+     */
+    private Reservation reserveClaimed(Long bookingId, UnaryOperator<Stay> nextStay) {
+        claim(bookingId);
+        try {
+            Stay previous = stays.get(bookingId);
+            Stay stay = nextStay.apply(previous);
+            if (stay == null && previous == null) {
+                claimedBookings.remove(bookingId);
+                return new Reservation(null, null, null);
+            }
+            return reserve(bookingId, previous, stay);
+        } catch (RuntimeException exception) {
+            claimedBookings.remove(bookingId);
+            throw exception;
+        }
+    }
+
+    private void claim(Long bookingId) {
+        if (!claimedBookings.add(bookingId)) {
+            throw new BookingConflictException("Booking " + bookingId + " is being changed by another request");
+        }
+    }
+
+    private Reservation reserve(Long claimedBookingId, Stay previous, Stay stay) {
+        if (stay == null && previous == null) {
+            return new Reservation(claimedBookingId, null, null);
+        }
+
+        List<RoomTypeCalendar> locked = lockForWrite(previous, stay);
+        try {
+            if (previous != null) {
+                calendarOf(previous.roomType()).occupancy.add(previous.startDay(), previous.endDay(), -1);
+            }
+            if (stay != null) {
+                OccupancyTree occupancy = calendarOf(stay.roomType()).occupancy;
+                int capacity = capacityOf(stay.roomType());
+                if (occupancy.max(stay.startDay(), stay.endDay()) >= capacity) {
+                    if (previous != null) {
+                        calendarOf(previous.roomType()).occupancy.add(previous.startDay(), previous.endDay(), 1);
+                    }
+                    throw new BookingConflictException("No " + stay.roomType() + " rooms available between "
+                            + LocalDate.ofEpochDay(stay.startDay()) + " and " + LocalDate.ofEpochDay(stay.endDay()));
+                }
+                occupancy.add(stay.startDay(), stay.endDay(), 1);
+            }
+        } finally {
+            unlock(locked);
+        }
+        return new Reservation(claimedBookingId, previous, stay);
+    }
+
+    /**
+     * Records a reservation against the booking ID it was stored under.
+     * Has no effect if the reservation has already been confirmed or cancelled.
+     *
+     * @param reservation the reservation returned by {@link #reserve(Booking)}.
+     * @param bookingId the ID of the stored booking.
+     */
+    public void confirm(Reservation reservation, Long bookingId) {
+        if (!reservation.settled.compareAndSet(false, true)) {
+            return;
+        }
+        if (reservation.reserved != null) {
+            stays.put(bookingId, reservation.reserved);
+        } else if (reservation.previous != null) {
+            stays.remove(bookingId);
+        }
+        release(reservation);
+    }
+
+    /**
+     * Rolls back a reservation whose write failed, restoring the stay it replaced.
+     * Has no effect if the reservation has already been confirmed or cancelled.
+     *
+     * @param reservation the reservation returned by {@link #reserve(Booking)}.
+     */
+    public void cancel(Reservation reservation) {
+        if (!reservation.settled.compareAndSet(false, true)) {
+            return;
+        }
+        restore(reservation.previous, reservation.reserved);
+        release(reservation);
+    }
+
+    /**
+     * Gives back the nights of a reserved stay and takes the nights of the stay it replaced again.
+     */
+    private void restore(Stay previous, Stay reserved) {
+        if (reserved == null && previous == null) {
+            return;
+        }
+        List<RoomTypeCalendar> locked = lockForWrite(previous, reserved);
+        try {
+            if (reserved != null) {
+                calendarOf(reserved.roomType()).occupancy.add(reserved.startDay(), reserved.endDay(), -1);
+            }
+            if (previous != null) {
+                calendarOf(previous.roomType()).occupancy.add(previous.startDay(), previous.endDay(), 1);
+            }
+        } finally {
+            unlock(locked);
+        }
+    }
+
+    private void release(Reservation reservation) {
+        if (reservation.claimedBookingId != null) {
+            claimedBookings.remove(reservation.claimedBookingId);
+        }
+        writePermits.release();
+    }
+
+    /**
+     * Takes a write permit, refusing the write instead of waiting while a rebuild holds or awaits the permits.
+     */
+    private void acquireWritePermit() {
+        if (!tryAcquireWritePermit()) {
+            throw new TooManyRequestsException("Room availability is being rebuilt; retry shortly");
+        }
+    }
+
+    private boolean tryAcquireWritePermit() {
+        try {
+            // Unlike tryAcquire(), a zero timeout does not barge ahead of a waiting rebuild
+            return writePermits.tryAcquire(0, TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Holds a room for a stay for {@code hms.inventory.hold-ttl}, so that it cannot be sold to anyone else
+     * while the guest completes the booking.
+     *
+     * @param roomType the room type.
+     * @param checkIn the first night, inclusive.
+     * @param checkOut the departure date, exclusive.
+     * @return the hold, to be passed on when creating the booking.
+     * @throws BookingConflictException if the room type is fully booked on any night of the stay.
+     * @throws TooManyRequestsException if the index is being rebuilt.
+     */
+    public InventoryHold hold(String roomType, LocalDate checkIn, LocalDate checkOut) {
+        acquireWritePermit();
+        try {
+            Stay stay = stayOf(calendars, roomType, checkIn.toEpochDay(), checkOut.toEpochDay());
+            reserve(null, null, stay);
+            Duration ttl = inventoryProperties.getHoldTtl();
+            InventoryHold hold = new InventoryHold(UUID.randomUUID().toString(), roomType, checkIn, checkOut,
+                    Instant.now().plus(ttl));
+            holds.put(hold.getId(), new HeldStay(hold, stay, System.nanoTime() + ttl.toNanos()));
+            return hold;
+        } finally {
+            writePermits.release();
+        }
+    }
+
+    /**
+     * Turns a hold into the reservation for a new booking of the same stay.
+     * The hold is used up, and its room is confirmed or released like any other reservation.
+     *
+     * @param holdId the ID of the hold.
+     * @param booking the new booking; its room type and dates must match the hold.
+     * @return the reservation to confirm or cancel once the booking is stored.
+     * @throws ResourceNotFoundException if the hold does not exist or has expired.
+     * @throws InvalidRequestException if the booking is for a different stay than the hold.
+     * @throws TooManyRequestsException if the index is being rebuilt.
+     */
+    public Reservation claim(String holdId, Booking booking) {
+        acquireWritePermit();
+        try {
+            HeldStay held = holds.remove(holdId);
+            if (held != null && held.expired(System.nanoTime())) {
+                release(held);
+                expiredHolds.increment();
+                held = null;
+            }
+            if (held == null) {
+                throw new ResourceNotFoundException("Hold not found or expired: " + holdId);
+            }
+            if (!held.stay().equals(stayOf(calendars, booking))) {
+                holds.put(holdId, held);
+                throw new InvalidRequestException("Booking does not match the room type and dates of hold " + holdId);
+            }
+            return new Reservation(null, null, held.stay());
+        } catch (RuntimeException exception) {
+            writePermits.release();
+            throw exception;
+        }
+    }
+
+    /**
+     * Gives up a hold before it expires.
+     * @param holdId the ID of the hold.
+     * @throws ResourceNotFoundException if the hold does not exist or has already expired.
+     * @throws TooManyRequestsException if the index is being rebuilt.
+     */
+    public void releaseHold(String holdId) {
+        acquireWritePermit();
+        try {
+            HeldStay held = holds.remove(holdId);
+            if (held == null) {
+                throw new ResourceNotFoundException("Hold not found or expired: " + holdId);
+            }
+            release(held);
+        } finally {
+            writePermits.release();
+        }
+    }
+
+    /**
+     * Releases every hold that has expired. Runs every {@code hms.inventory.hold-sweep-interval};
+     * a sweep that coincides with a rebuild is skipped.
+     * @return the number of holds released.
+     */
+    public int expireHolds() {
+        if (!tryAcquireWritePermit()) {
+            return 0;
+        }
+        try {
+            long now = System.nanoTime();
+            int expired = 0;
+            for (HeldStay held : holds.values()) {
+                // Only the thread that removes a hold may release it
+                if (held.expired(now) && holds.remove(held.hold().getId(), held)) {
+                    release(held);
+                    expiredHolds.increment();
+                    expired++;
+                }
+            }
+            return expired;
+        } finally {
+            writePermits.release();
+        }
+    }
+
+    private void release(HeldStay held) {
+        restore(null, held.stay());
+    }
+
+    /**
+     * Releases the stays of bookings that have left the booking table, such as archived ones.
+     * Waits for a running rebuild to finish, and for a write in flight to one of the bookings to be confirmed or
+     * cancelled: until then the indexed stay is the claim holder's, and a cancel would restore it after removal.
+     * @param bookingIds the IDs of the bookings to forget.
+     */
+    public void remove(Collection<Long> bookingIds) {
+        writePermits.acquireUninterruptibly();
+        try {
+            for (Long bookingId : bookingIds) {
+                awaitClaim(bookingId);
+                try {
+                    Stay stay = stays.remove(bookingId);
+                    if (stay == null) {
+                        continue;
+                    }
+                    List<RoomTypeCalendar> locked = lockForWrite(stay, null);
+                    try {
+                        calendarOf(stay.roomType()).occupancy.add(stay.startDay(), stay.endDay(), -1);
+                    } finally {
+                        unlock(locked);
+                    }
+                } finally {
+                    claimedBookings.remove(bookingId);
+                }
+            }
+        } finally {
+            writePermits.release();
+        }
+    }
+
+    /**
+     * Claims a booking, waiting for the current holder instead of failing. Claims are only held for the length
+     * of one write, and a holder never waits for a write permit or another claim, so the wait is short.
+     */
+    private void awaitClaim(Long bookingId) {
+        while (!claimedBookings.add(bookingId)) {
+            LockSupport.parkNanos(CLAIM_POLL_NANOS);
+        }
+    }
+
+    /**
+     * Computes the free capacity of a room type between two dates.
+     *
+     * @param roomType the room type.
+     * @param checkIn the first night, inclusive.
+     * @param checkOut the departure date, exclusive; a same-day range covers the check-in night.
+     * @return the capacity, peak occupancy and rooms still available over the range.
+     * @throws InvalidRequestException if the room type is not configured or the dates are invalid.
+     */
+    public Availability getAvailability(String roomType, LocalDate checkIn, LocalDate checkOut) {
+        long startDay = checkIn.toEpochDay();
+        long endDay = Math.max(checkOut.toEpochDay(), startDay + 1);
+        if (checkOut.isBefore(checkIn)) {
+            throw new InvalidRequestException("Check-out date must not be before check-in date");
+        }
+        new Stay(roomType, startDay, endDay).checked();
+        roomType = requireConfigured(roomType);
+
+        int capacity = capacityOf(roomType);
+        int booked = 0;
+        RoomTypeCalendar calendar = calendars.get(calendarKey(roomType));
+        if (calendar != null) {
+            calendar.lock.readLock().lock();
+            try {
+                booked = calendar.occupancy.max(startDay, endDay);
+            } finally {
+                calendar.lock.readLock().unlock();
+            }
+        }
+        return new Availability(roomType, checkIn, checkOut, capacity, booked, Math.max(capacity - booked, 0));
+    }
+
+    /**
+     * Returns the number of rooms of a room type: its configured capacity, unless that has been raised.
+     * @param roomType the room type, matched case-insensitively.
+     * @return the number of rooms.
+     */
+    public int capacityOf(String roomType) {
+        int configured = inventoryProperties.capacityOf(roomType);
+        Integer raised = raisedCapacities.get(calendarKey(roomType));
+        return raised != null ? Math.max(raised, configured) : configured;
+    }
+
+    /**
+     * Raises the number of rooms of a room type for as long as the application runs, leaving the configured
+     * capacity untouched. Lowering a capacity is not supported; a smaller number is ignored.
+     * @param roomType the room type, matched case-insensitively.
+     * @param rooms the new number of rooms.
+     */
+    public void raiseCapacity(String roomType, int rooms) {
+        raisedCapacities.merge(calendarKey(roomType), rooms, Math::max);
+    }
+
+    /**
+     * Runs an action while no write holds a reservation, refusing new writes with a {@link TooManyRequestsException}
+     * like a rebuild does. Every booking is inserted under a reservation, so nothing is inserted while it runs.
+     * @param action the action.
+     * @return the result of the action.
+     */
+    public <T> T excludingWrites(Supplier<T> action) {
+        writePermits.acquireUninterruptibly(Integer.MAX_VALUE);
+        try {
+            return action.get();
+        } finally {
+            writePermits.release(Integer.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Returns every configured room type in alphabetical order. Only these can be booked or held.
+     * @return the known room types.
+     */
+    public Set<String> getRoomTypes() {
+        Set<String> roomTypes = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        roomTypes.addAll(inventoryProperties.getCapacity().keySet());
+        return roomTypes;
+    }
+
+    /**
+     * Rebuilds the index from the repository once the application context is ready.
+     * Runs before command line runners, so bookings seeded at startup are indexed as they are written.
+     * <p>
+     * The new index is built next to the current one and swapped in once complete. Writes are refused
+     * with a {@link TooManyRequestsException} from the moment the rebuild is requested until the swap.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void rebuild() {
+        writePermits.acquireUninterruptibly(Integer.MAX_VALUE);
+        try {
+            Map<String, RoomTypeCalendar> freshCalendars = new ConcurrentHashMap<>();
+            Map<Long, Stay> freshStays = new ConcurrentHashMap<>();
+            long count = readOnlyTransactionTemplate.execute(status -> {
+                long indexed = 0;
+                try (Stream<BookingStay> bookings = bookingRepository.streamStays()) {
+                    for (BookingStay booking : (Iterable<BookingStay>) bookings::iterator) {
+                        Stay stay = stayOrNull(freshCalendars, booking);
+                        if (stay != null) {
+                            calendarOf(freshCalendars, stay.roomType()).occupancy.add(stay.startDay(), stay.endDay(), 1);
+                            freshStays.put(booking.getId(), stay);
+                            indexed++;
+                        }
+                    }
+                }
+                return indexed;
+            });
+            // Holds are not stored, so they are carried over from before the rebuild
+            for (HeldStay held : holds.values()) {
+                Stay stay = held.stay();
+                calendarOf(freshCalendars, stay.roomType()).occupancy.add(stay.startDay(), stay.endDay(), 1);
+            }
+            calendars = freshCalendars;
+            stays = freshStays;
+            log.info("Availability index rebuilt with {} stays", count);
+        } finally {
+            writePermits.release(Integer.MAX_VALUE);
+        }
+    }
+
+    private Stay stayOrNull(Map<String, RoomTypeCalendar> calendarIndex, BookingStay booking) {
+        if (booking.getRoomType() == null || booking.getCheckInDate() == null || booking.getCheckOutDate() == null) {
+            return null;
+        }
+        try {
+            return stayOf(calendarIndex, booking.getRoomType(), Stay.epochDay(booking.getCheckInDate()),
+                    Stay.epochDay(booking.getCheckOutDate()));
+        } catch (InvalidRequestException exception) {
+            log.warn("Skipping booking {} with invalid stay: {}", booking.getId(), exception.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Derives the stay of a booking. Same-day bookings occupy the check-in night.
+     * @return the stay, or null if the booking has no room type or dates.
+     * @throws InvalidRequestException if check-out is before check-in, the dates are out of range
+     * or the room type is not configured.
+     */
+    private Stay stayOf(Map<String, RoomTypeCalendar> calendarIndex, Booking booking) {
+        if (booking.getRoomType() == null || booking.getCheckInDate() == null || booking.getCheckOutDate() == null) {
+            return null;
+        }
+        return stayOf(calendarIndex, booking.getRoomType(), Stay.epochDay(booking.getCheckInDate()),
+                Stay.epochDay(booking.getCheckOutDate()));
+    }
+
+    /**
+     * Builds a stay under the canonical spelling of its room type, so that every spelling of a room type
+     * shares one calendar, the way {@link #capacityOf} shares one capacity.
+     */
+    private Stay stayOf(Map<String, RoomTypeCalendar> calendarIndex, String roomType, long startDay, long endDay) {
+        return Stay.of(calendarOf(calendarIndex, roomType).roomType, startDay, endDay);
+    }
+
+    /**
+     * Returns the calendar of a room type, matched case-insensitively. A new calendar takes the configured
+     * spelling of its room type. Calendars only exist for configured room types, so request input cannot add more.
+     * @throws InvalidRequestException if the room type is not configured.
+     */
+    private RoomTypeCalendar calendarOf(String roomType) {
+        return calendarOf(calendars, roomType);
+    }
+
+    private RoomTypeCalendar calendarOf(Map<String, RoomTypeCalendar> calendarIndex, String roomType) {
+        RoomTypeCalendar calendar = calendarIndex.get(calendarKey(roomType));
+        if (calendar != null) {
+            return calendar;
+        }
+        String configuredRoomType = requireConfigured(roomType);
+        return calendarIndex.computeIfAbsent(calendarKey(roomType), key -> new RoomTypeCalendar(configuredRoomType));
+    }
+
+    /**
+     * Returns the configured spelling of a room type.
+     * @throws InvalidRequestException if the room type is not configured.
+     */
+    private String requireConfigured(String roomType) {
+        if (!inventoryProperties.isConfigured(roomType)) {
+            throw new InvalidRequestException("Unknown room type: " + roomType);
+        }
+        return inventoryProperties.configuredRoomType(roomType);
+    }
+
+    private static String calendarKey(String roomType) {
+        return roomType.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Write-locks the calendars touched by the given stays in a consistent order to avoid deadlocks.
+     */
+    private List<RoomTypeCalendar> lockForWrite(Stay first, Stay second) {
+        List<RoomTypeCalendar> toLock = new ArrayList<>(2);
+        if (first != null) {
+            toLock.add(calendarOf(first.roomType()));
+        }
+        if (second != null && (first == null || !first.roomType().equals(second.roomType()))) {
+            toLock.add(calendarOf(second.roomType()));
+        }
+        toLock.sort(Comparator.comparing(calendar -> calendar.roomType));
+        for (RoomTypeCalendar calendar : toLock) {
+            calendar.lock.writeLock().lock();
+        }
+        return toLock;
+    }
+
+    private static void unlock(List<RoomTypeCalendar> locked) {
+        for (int i = locked.size() - 1; i >= 0; i--) {
+            locked.get(i).lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.service;
+
+import com.hms.repository.ArchivedBookingRepository;
+import com.hms.repository.BookingRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves bookings that checked out more than {@code hms.archive.horizon} ago from the hot booking table into
+ * the {@code booking_archive} table, so the hot table and its indexes only hold current and upcoming stays.
+ * <p>
+ * Bookings are moved in batches of {@code hms.archive.batch-size}, each batch in its own transaction: the batch is
+ * locked, copied with a single INSERT ... SELECT and deleted. With {@code hms.archive.enabled} the job runs every
+ * {@code hms.archive.interval}; it can also be started through {@code POST /bookings/archive}.
+ */
+@Service
+@Lazy(false)
+@Slf4j
+public class BookingArchiver {
+    private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archivedBookingRepository;
+    private final AvailabilityIndex availabilityIndex;
+    private final BookingCache bookingCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration horizon;
+    private final int batchSize;
+    private final Counter archivedCounter;
+    private final ScheduledExecutorService archiveExecutor;
+
+    @Autowired
+    public BookingArchiver(BookingRepository bookingRepository,
+                           ArchivedBookingRepository archivedBookingRepository,
+                           AvailabilityIndex availabilityIndex,
+                           BookingCache bookingCache,
+                           ApplicationEventPublisher eventPublisher,
+                           TransactionTemplate transactionTemplate,
+                           MeterRegistry meterRegistry,
+                           @Value("${hms.archive.enabled:false}") boolean enabled,
+                           @Value("${hms.archive.horizon:90d}") Duration horizon,
+                           @Value("${hms.archive.interval:1h}") Duration interval,
+                           @Value("${hms.archive.batch-size:500}") int batchSize) {
+        this.bookingRepository = bookingRepository;
+        this.archivedBookingRepository = archivedBookingRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.bookingCache = bookingCache;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.horizon = horizon;
+        this.batchSize = batchSize;
+        this.archivedCounter = Counter.builder("hms.bookings.archived")
+                .description("Bookings moved to the archive table")
+                .register(meterRegistry);
+        if (enabled) {
+            this.archiveExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "booking-archiver");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long intervalMillis = interval.toMillis();
+            archiveExecutor.scheduleWithFixedDelay(this::archiveQuietly, intervalMillis, intervalMillis,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            this.archiveExecutor = null;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (archiveExecutor != null) {
+            archiveExecutor.shutdownNow();
+        }
+    }
+
+    private void archiveQuietly() {
+        try {
+            archive();
+        } catch (RuntimeException exception) {
+            log.warn("Archiving bookings failed: {}", exception.getMessage());
+        }
+    }
+
+    /**
+     * Archives every booking that checked out before now minus the horizon.
+     * Batches already moved stay archived if a later batch fails.
+     *
+     * @return the number of bookings archived.
+     */
+    public synchronized long archive() {
+        Date cutoff = Date.from(Instant.now().minus(horizon));
+        long startedAt = System.nanoTime();
+        long archived = 0;
+        while (true) {
+            List<Long> ids = transactionTemplate.execute(status -> moveBatch(cutoff));
+            if (ids.isEmpty()) {
+                break;
+            }
+            availabilityIndex.remove(ids);
+            ids.forEach(bookingCache::invalidate);
+            eventPublisher.publishEvent(new BookingsArchivedEvent(ids));
+            archivedCounter.increment(ids.size());
+            archived += ids.size();
+        }
+        if (archived > 0) {
+            log.info("Archived {} bookings checked out before {} in {} ms", archived, cutoff,
+                    (System.nanoTime() - startedAt) / 1_000_000);
+        }
+        return archived;
+    }
+
+    private List<Long> moveBatch(Date cutoff) {
+        List<Long> ids = bookingRepository.lockCheckedOutBefore(cutoff, PageRequest.ofSize(batchSize));
+        if (!ids.isEmpty()) {
+            archivedBookingRepository.copyFromBookings(ids, new Date());
+            bookingRepository.deleteAllByIdInBatch(ids);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.hms.model.Booking;
+import com.hms.model.CacheStatistics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache of bookings by ID, backed by Caffeine (W-TinyLFU eviction).
+ * Missing IDs are cached as empty entries with a shorter lifetime, so repeated lookups of
+ * unknown IDs do not reach the database either.
+ * <p>
+ * Cached bookings are shared between callers and must not be modified.
+ */
+@Component
+public class BookingCache {
+    private final Cache<Long, Optional<Booking>> cache;
+
+    @Autowired
+    public BookingCache(MeterRegistry meterRegistry,
+                        @Value("${hms.bookings.cache.max-size:10000}") long maxSize,
+                        @Value("${hms.bookings.cache.ttl:10m}") Duration ttl,
+                        @Value("${hms.bookings.cache.negative-ttl:30s}") Duration negativeTtl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new EntryExpiry(ttl.toNanos(), negativeTtl.toNanos()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "booking");
+    }
+
+    /**
+     * Expires found bookings after the regular TTL and missing IDs after the negative TTL, both measured from the last write.
+     */
+    private record EntryExpiry(long ttlNanos, long negativeTtlNanos) implements Expiry<Long, Optional<Booking>> {
+        @Override
+        public long expireAfterCreate(Long id, Optional<Booking> booking, long currentTime) {
+            return booking.isPresent() ? ttlNanos : negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(Long id, Optional<Booking> booking, long currentTime, long currentDuration) {
+            return expireAfterCreate(id, booking, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Long id, Optional<Booking> booking, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    /**
+     * Returns the cached lookup result for the ID, loading it on a miss.
+     * Concurrent misses for the same ID trigger a single load.
+     *
+     * @param id the booking ID.
+     * @param loader loads the booking from the database.
+     * @return the booking, or an empty Optional if no booking has this ID.
+     */
+    public Optional<Booking> get(Long id, Function<Long, Optional<Booking>> loader) {
+        return cache.get(id, loader);
+    }
+
+    /**
+     * Stores the state of a booking after it has been written, unless a newer version is already cached.
+     * Concurrent writes to the same booking can finish out of order, and the slower one must not
+     * overwrite the faster one's newer version.
+     * @param booking the saved booking, with its ID and version populated.
+     */
+    public void put(Booking booking) {
+        cache.asMap().merge(booking.getId(), Optional.of(booking),
+                (cached, written) -> isNewer(cached, written) ? cached : written);
+    }
+
+    private static boolean isNewer(Optional<Booking> cached, Optional<Booking> written) {
+        Long cachedVersion = cached.map(Booking::getVersion).orElse(null);
+        Long writtenVersion = written.get().getVersion();
+        return cachedVersion != null && writtenVersion != null && cachedVersion > writtenVersion;
+    }
+
+    /**
+     * Removes any entry for the ID, including a cached miss.
+     * @param id the booking ID.
+     */
+    public void invalidate(Long id) {
+        cache.invalidate(id);
+    }
+
+    /**
+     * Returns a snapshot of the cache statistics.
+     * @return the hit, miss, load and eviction counters and the current size.
+     */
+    public CacheStatistics getStatistics() {
+        CacheStats stats = cache.stats();
+        return new CacheStatistics(
+                cache.estimatedSize(),
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.loadCount(),
+                stats.evictionCount(),
+                stats.averageLoadPenalty() / 1_000_000.0
+        );
+    }
+}
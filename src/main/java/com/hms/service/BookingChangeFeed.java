@@ -0,0 +1,291 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.service;
+
+import com.hms.exceptions.TooManyRequestsException;
+import com.hms.model.Booking;
+import com.hms.model.BookingChange;
+import com.hms.model.BookingPatch;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Feed of committed booking changes, streamed to subscribers as Server-Sent Events.
+ * <p>
+ * Changes are appended to a ring buffer of the last {@code hms.feed.capacity} changes with consecutive offsets.
+ * Appending never waits for subscribers: each subscriber reads the ring from its own offset on a sender thread,
+ * so a slow client only delays itself. A subscriber that falls so far behind that its next change has been
+ * overwritten receives an {@code overflow} event naming the skipped offsets and continues with the oldest
+ * change still held. Offsets are held in memory only and restart at zero with the application, so a subscriber
+ * asking for an offset beyond the newest change receives a {@code reset} event and continues from the head.
+ * <p>
+ * Changes are appended as their writers publish them after commit, so two writes to the same booking can reach
+ * the feed in the opposite order to their commits. Each change carries the booking's version for consumers to
+ * order by.
+ */
+@Component
+@Slf4j
+public class BookingChangeFeed {
+    private final AtomicReferenceArray<BookingChange> ring;
+    private final int mask;
+    private final int maxSubscribers;
+    private final Duration timeout;
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    // One permit per subscription, taken before it is added and given back when it is removed
+    private final Semaphore subscriberPermits;
+    private final ThreadPoolExecutor senders;
+    private final ScheduledExecutorService heartbeatExecutor;
+    private final Counter overflows;
+    // Written only while holding the monitor, after the change has been stored in the ring
+    private volatile long nextOffset;
+
+    @Autowired
+    public BookingChangeFeed(MeterRegistry meterRegistry,
+                             @Value("${hms.feed.capacity:4096}") int capacity,
+                             @Value("${hms.feed.max-subscribers:100}") int maxSubscribers,
+                             @Value("${hms.feed.heartbeat-interval:15s}") Duration heartbeatInterval,
+                             @Value("${hms.feed.timeout:30m}") Duration timeout) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("hms.feed.capacity must be at least 1");
+        }
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.ring = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.maxSubscribers = maxSubscribers;
+        this.timeout = timeout;
+        this.subscriberPermits = new Semaphore(maxSubscribers);
+
+        AtomicInteger senderCount = new AtomicInteger();
+        this.senders = new ThreadPoolExecutor(maxSubscribers, maxSubscribers, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "booking-feed-sender-" + senderCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.senders.allowCoreThreadTimeOut(true);
+        this.heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "booking-feed-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long heartbeatMillis = heartbeatInterval.toMillis();
+        heartbeatExecutor.scheduleWithFixedDelay(this::heartbeat, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+
+        Gauge.builder("hms.feed.subscribers", subscriptions, Set::size)
+                .description("Clients subscribed to the booking change feed")
+                .register(meterRegistry);
+        Gauge.builder("hms.feed.offset", this, feed -> feed.nextOffset)
+                .description("Offset the next booking change will be published at")
+                .register(meterRegistry);
+        this.overflows = Counter.builder("hms.feed.overflows")
+                .description("Times a subscriber fell behind the ring buffer and skipped changes")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeatExecutor.shutdownNow();
+        subscriptions.forEach(subscription -> subscription.emitter.complete());
+        senders.shutdownNow();
+    }
+
+    /**
+     * Appends a committed booking change to the feed.
+     * @param event the change published by the booking service.
+     */
+    @EventListener
+    public void onBookingChanged(BookingChangedEvent event) {
+        BookingChange.Type type = event.patch() != null
+                ? BookingChange.Type.PATCHED
+                : event.created() ? BookingChange.Type.CREATED : BookingChange.Type.UPDATED;
+        append(type, event.bookingId(), event.booking(), event.patch(), event.version());
+    }
+
+    /**
+     * Appends one change per archived booking to the feed.
+     * @param event the archival published by the booking archiver.
+     */
+    @EventListener
+    public void onBookingsArchived(BookingsArchivedEvent event) {
+        for (Long bookingId : event.bookingIds()) {
+            append(BookingChange.Type.ARCHIVED, bookingId, null, null, null);
+        }
+    }
+
+    private void append(BookingChange.Type type, Long bookingId, Booking booking, BookingPatch patch, Long version) {
+        Instant occurredAt = Instant.now();
+        synchronized (this) {
+            long offset = nextOffset;
+            ring.set(index(offset), new BookingChange(offset, type, bookingId, booking, patch, version, occurredAt));
+            nextOffset = offset + 1;
+        }
+        for (Subscription subscription : subscriptions) {
+            subscription.wake();
+        }
+    }
+
+    /**
+     * Subscribes to the feed. Changes from the given offset onwards that are still in the ring buffer are sent
+     * first, then new changes as they are committed. Each event carries its offset as the SSE event ID.
+     * An offset beyond the newest change, typically one from before a restart, is answered with a {@code reset}
+     * event and the subscription continues with the next new change. The stream is completed after
+     * {@code hms.feed.timeout}; clients reconnect from their last offset.
+     *
+     * @param fromOffset the first offset to send, or null to receive only changes made from now on.
+     * @return the emitter streaming the changes.
+     * @throws TooManyRequestsException if {@code hms.feed.max-subscribers} clients are already subscribed.
+     */
+    public SseEmitter subscribe(Long fromOffset) {
+        if (!subscriberPermits.tryAcquire()) {
+            throw new TooManyRequestsException("The booking change feed already has " + maxSubscribers + " subscribers");
+        }
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscription subscription = new Subscription(emitter, fromOffset == null ? nextOffset : Math.max(fromOffset, 0));
+        subscriptions.add(subscription);
+        emitter.onCompletion(subscription::detach);
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> subscription.close());
+        subscription.wake();
+        return emitter;
+    }
+
+    private void heartbeat() {
+        for (Subscription subscription : subscriptions) {
+            subscription.heartbeatDue = true;
+            subscription.wake();
+        }
+    }
+
+    private int index(long offset) {
+        return (int) (offset & mask);
+    }
+
+    private final class Subscription {
+        final SseEmitter emitter;
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        volatile boolean closed;
+        volatile boolean heartbeatDue;
+        // Only read and advanced by the sender currently draining this subscription
+        long cursor;
+
+        Subscription(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+
+        /**
+         * Schedules a sender to drain this subscription unless one is already scheduled. Never blocks.
+         */
+        void wake() {
+            if (!closed && scheduled.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        void drain() {
+            try {
+                do {
+                    sendPending();
+                    scheduled.set(false);
+                    // Re-check for changes appended after the last send but before the flag was cleared
+                } while (!closed && (cursor < nextOffset || heartbeatDue) && scheduled.compareAndSet(false, true));
+            } catch (IOException | IllegalStateException exception) {
+                log.debug("Dropping change feed subscriber: {}", exception.getMessage());
+                close();
+            }
+        }
+
+        private void sendPending() throws IOException {
+            boolean sent = false;
+            while (!closed) {
+                long head = nextOffset;
+                long oldest = Math.max(0, head - ring.length());
+                if (cursor > head) {
+                    // The offset was never published by this instance, e.g. the client saw a previous run
+                    emitter.send(SseEmitter.event()
+                            .name("reset")
+                            .data(Map.of("requestedFrom", cursor, "resumeFrom", head), MediaType.APPLICATION_JSON));
+                    cursor = head;
+                }
+                if (cursor < oldest) {
+                    emitter.send(SseEmitter.event()
+                            .name("overflow")
+                            .data(Map.of("skippedFrom", cursor, "resumeFrom", oldest), MediaType.APPLICATION_JSON));
+                    overflows.increment();
+                    cursor = oldest;
+                }
+                if (cursor >= head) {
+                    break;
+                }
+                BookingChange change = ring.get(index(cursor));
+                if (change == null || change.getOffset() != cursor) {
+                    // Overwritten since head was read; the next round reports the overflow
+                    continue;
+                }
+                emitter.send(SseEmitter.event()
+                        .id(Long.toString(cursor))
+                        .name(change.getType().name().toLowerCase(Locale.ROOT))
+                        .data(change, MediaType.APPLICATION_JSON));
+                cursor++;
+                sent = true;
+            }
+            if (heartbeatDue && !sent && !closed) {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            }
+            heartbeatDue = false;
+        }
+
+        void detach() {
+            closed = true;
+            if (subscriptions.remove(this)) {
+                subscriberPermits.release();
+            }
+        }
+
+        void close() {
+            detach();
+            emitter.complete();
+        }
+    }
+}
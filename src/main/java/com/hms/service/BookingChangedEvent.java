@@ -0,0 +1,46 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.service;
+
+import com.hms.model.Booking;
+import com.hms.model.BookingPatch;
+
+/**
+ * Published by {@link BookingService} after a booking has been created or changed and the change is committed.
+ * Carries either the full saved booking or, for partial updates, only the patch that was applied.
+ *
+ * @param bookingId the ID of the booking.
+ * @param booking the booking as saved, or null for a partial update.
+ * @param patch the partial update that was applied, or null for a full save.
+ * @param created whether the booking was newly created rather than changed.
+ * @param version the version the booking has after the change.
+ */
+public record BookingChangedEvent(Long bookingId, Booking booking, BookingPatch patch, boolean created, Long version) {
+
+    static BookingChangedEvent created(Booking booking) {
+        return new BookingChangedEvent(booking.getId(), booking, null, true, booking.getVersion());
+    }
+
+    static BookingChangedEvent updated(Booking booking) {
+        return new BookingChangedEvent(booking.getId(), booking, null, false, booking.getVersion());
+    }
+
+    static BookingChangedEvent patched(Long bookingId, BookingPatch patch, Long version) {
+        return new BookingChangedEvent(bookingId, null, patch, false, version);
+    }
+}
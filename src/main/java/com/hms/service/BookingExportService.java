@@ -0,0 +1,136 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.hms.model.Booking;
+import com.hms.model.ExportFormat;
+import com.hms.repository.BookingRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+@Slf4j
+public class BookingExportService {
+    private static final String CSV_HEADER = "id,customerName,roomType,checkInDate,checkOutDate,totalPrice\n";
+    private static final DateTimeFormatter CSV_DATE_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+    // Flush in step with the JDBC fetch size so the client sees data while the query is still running
+    private static final int FLUSH_INTERVAL = 500;
+
+    private final BookingRepository bookingRepository;
+    private final ObjectWriter bookingWriter;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public BookingExportService(BookingRepository bookingRepository, ObjectMapper objectMapper) {
+        this.bookingRepository = bookingRepository;
+        this.bookingWriter = objectMapper.writerFor(Booking.class);
+    }
+
+    /**
+     * Writes every booking to the given output stream in the requested format, one row at a time.
+     * Rows are read through a forward-only cursor and detached from the persistence context once written,
+     * so memory use stays flat regardless of the table size.
+     *
+     * @param format the output format.
+     * @param outputStream the stream to write to; it is flushed but not closed.
+     * @return the number of bookings written.
+     * @throws IOException if writing to the output stream fails.
+     */
+    @Transactional(readOnly = true)
+    public long exportBookings(ExportFormat format, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+        }
+
+        long count = 0;
+        try (Stream<Booking> bookings = bookingRepository.streamAll()) {
+            Iterator<Booking> iterator = bookings.iterator();
+            while (iterator.hasNext()) {
+                Booking booking = iterator.next();
+                if (format == ExportFormat.CSV) {
+                    writeCsvRow(writer, booking);
+                } else {
+                    writer.write(bookingWriter.writeValueAsString(booking));
+                    writer.write('\n');
+                }
+                entityManager.detach(booking);
+
+                if (++count % FLUSH_INTERVAL == 0) {
+                    writer.flush();
+                }
+            }
+        }
+        writer.flush();
+        log.info("Exported {} bookings as {}", count, format);
+        return count;
+    }
+
+    private void writeCsvRow(Writer writer, Booking booking) throws IOException {
+        writer.write(String.valueOf(booking.getId()));
+        writer.write(',');
+        writer.write(escapeCsv(booking.getCustomerName()));
+        writer.write(',');
+        writer.write(escapeCsv(booking.getRoomType()));
+        writer.write(',');
+        writer.write(formatDate(booking.getCheckInDate()));
+        writer.write(',');
+        writer.write(formatDate(booking.getCheckOutDate()));
+        writer.write(',');
+        writer.write(Float.toString(booking.getTotalPrice()));
+        writer.write('\n');
+    }
+
+    private static String formatDate(Date date) {
+        return date == null ? "" : CSV_DATE_FORMAT.format(date.toInstant());
+    }
+
+    /**
+     * Quotes a CSV field if it contains a separator, quote or line break, doubling any embedded quotes.
+     */
+    private static String escapeCsv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.service;
+
+import com.hms.config.SeedProperties;
+import com.hms.model.Booking;
+import com.hms.utils.OccupancyTree;
+import com.hms.utils.SyntheticBookingGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bulk-loads synthetic bookings for performance work.
+ * <p>
+ * Chunks of bookings are generated in parallel by {@link SyntheticBookingGenerator} and written in order by a single
+ * writer with plain JDBC batch inserts, one transaction per chunk. Only a bounded number of chunks is generated ahead
+ * of the writer, so memory use does not depend on the number of rows. IDs are taken as one block from the booking
+ * sequence, which is moved past the block afterwards while bookings cannot be written.
+ * <p>
+ * Seeded bookings bypass the availability checks; the availability index and the revenue rollups are rebuilt
+ * once loading has finished. A million bookings over a year far exceed the configured room counts, so the capacity
+ * of every room type in the availability index is then raised to its seeded peak occupancy plus
+ * {@code hms.seed.synthetic.capacity-headroom}.
+ */
+@Component
+@Slf4j
+public class BookingSeeder {
+    private static final String INSERT_BOOKING = "INSERT INTO booking "
+            + "(id, customer_name, room_type, check_in_date, check_out_date, total_price, version) "
+            + "VALUES (?, ?, ?, ?, ?, ?, 0)";
+    private static final int PROGRESS_STEPS = 10;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AvailabilityIndex availabilityIndex;
+    private final RevenueRollup revenueRollup;
+    private final SeedProperties seedProperties;
+
+    @Autowired
+    public BookingSeeder(JdbcTemplate jdbcTemplate,
+                         TransactionTemplate transactionTemplate,
+                         AvailabilityIndex availabilityIndex,
+                         RevenueRollup revenueRollup,
+                         SeedProperties seedProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.availabilityIndex = availabilityIndex;
+        this.revenueRollup = revenueRollup;
+        this.seedProperties = seedProperties;
+    }
+
+    /**
+     * Generates and inserts the configured number of synthetic bookings, logging progress in rows per second.
+     *
+     * @return the number of bookings inserted.
+     */
+    public long seedSynthetic() {
+        SeedProperties.Synthetic settings = seedProperties.getSynthetic();
+        long rows = settings.getRows();
+        int chunkSize = settings.getChunkSize();
+        int threads = Math.max(1, settings.getGeneratorThreads());
+        LocalDate startDate = settings.getStartDate() != null ? settings.getStartDate() : LocalDate.now();
+        SyntheticBookingGenerator generator =
+                new SyntheticBookingGenerator(settings.getRandomSeed(), startDate, settings.getHorizonDays());
+
+        long firstId = reserveIds(rows);
+        long chunks = (rows + chunkSize - 1) / chunkSize;
+        log.info("Seeding {} synthetic bookings (seed {}, from {}) in chunks of {} with {} generator threads",
+                rows, settings.getRandomSeed(), startDate, chunkSize, threads);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService generators = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "booking-seed-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        long startedAt = System.nanoTime();
+        long written = 0;
+        long nextProgress = rows / PROGRESS_STEPS;
+        try {
+            Deque<Future<List<Booking>>> pending = new ArrayDeque<>();
+            long nextChunk = 0;
+            while (written < rows) {
+                // Keep every generator busy while capping how far generation runs ahead of the writer
+                while (nextChunk < chunks && pending.size() < threads * 2) {
+                    long chunkIndex = nextChunk++;
+                    int count = (int) Math.min(chunkSize, rows - chunkIndex * chunkSize);
+                    pending.add(generators.submit(() -> generator.generateChunk(chunkIndex, count)));
+                }
+                List<Booking> chunk = pending.poll().get();
+                insertChunk(chunk, firstId + written);
+                written += chunk.size();
+                if (written >= nextProgress && written < rows) {
+                    log.info("Seeded {} of {} bookings ({} rows/s)", written, rows, rowsPerSecond(written, startedAt));
+                    nextProgress += rows / PROGRESS_STEPS;
+                }
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Seeding was interrupted after " + written + " bookings", exception);
+        } catch (ExecutionException exception) {
+            throw new IllegalStateException("Generating synthetic bookings failed", exception.getCause());
+        } finally {
+            generators.shutdownNow();
+        }
+
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - startedAt);
+        log.info("Seeded {} bookings in {} ms ({} rows/s)", written, elapsed.toMillis(), rowsPerSecond(written, startedAt));
+
+        availabilityIndex.rebuild();
+        scaleCapacities(settings.getCapacityHeadroom());
+        revenueRollup.rebuild();
+        return written;
+    }
+
+    /**
+     * Raises the capacity of every room type to its peak occupancy plus the given fraction of it.
+     * Without this, nearly every night of the seeded horizon would be overbooked and every new booking refused.
+     */
+    private void scaleCapacities(double headroom) {
+        for (String roomType : availabilityIndex.getRoomTypes()) {
+            int peak = availabilityIndex.getAvailability(roomType, LocalDate.EPOCH,
+                    LocalDate.ofEpochDay(OccupancyTree.MAX_DAY)).getBooked();
+            int rooms = (int) Math.ceil(peak * (1 + headroom));
+            if (rooms > availabilityIndex.capacityOf(roomType)) {
+                availabilityIndex.raiseCapacity(roomType, rooms);
+                log.info("Raised {} capacity to {} rooms for a seeded peak of {}", roomType, rooms, peak);
+            }
+        }
+    }
+
+    /**
+     * Takes a block of IDs from the booking sequence and restarts the sequence after it.
+     * The first value drawn is never handed out by Hibernate, so the block cannot overlap IDs allocated before.
+     * Drawing and restarting are two statements, so they run while writes are excluded: otherwise a booking
+     * created in between could take a sequence block inside the seeded one.
+     */
+    private long reserveIds(long count) {
+        return availabilityIndex.excludingWrites(() -> {
+            Long firstId = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR booking_sequence", Long.class);
+            jdbcTemplate.execute("ALTER SEQUENCE booking_sequence RESTART WITH " + (firstId + count));
+            return firstId;
+        });
+    }
+
+    private void insertChunk(List<Booking> chunk, long firstId) {
+        List<Object[]> rows = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            Booking booking = chunk.get(i);
+            rows.add(new Object[]{
+                    firstId + i,
+                    booking.getCustomerName(),
+                    booking.getRoomType(),
+                    new Timestamp(booking.getCheckInDate().getTime()),
+                    new Timestamp(booking.getCheckOutDate().getTime()),
+                    booking.getTotalPrice()
+            });
+        }
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_BOOKING, rows));
+    }
+
+    private static long rowsPerSecond(long rows, long startedAtNanos) {
+        long elapsedNanos = Math.max(1, System.nanoTime() - startedAtNanos);
+        return rows * 1_000_000_000L / elapsedNanos;
+    }
+}
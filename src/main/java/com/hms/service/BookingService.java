@@ -17,21 +17,125 @@
 package com.hms.service;
 
 import com.hms.exceptions.ResourceNotFoundException;
+import com.hms.exceptions.BookingConflictException;
+import com.hms.exceptions.InvalidRequestException;
+import com.hms.exceptions.TooManyRequestsException;
+import com.hms.model.ArchivedBooking;
+import com.hms.model.Availability;
+import com.hms.model.BatchItemResult;
 import com.hms.model.Booking;
+import com.hms.model.BookingBatchResult;
+import com.hms.model.BookingFilter;
+import com.hms.model.BookingPage;
+import com.hms.model.BookingPatch;
+import com.hms.model.BookingSearchCriteria;
+import com.hms.model.BookingSummary;
+import com.hms.model.CacheStatistics;
+import com.hms.model.InventoryHold;
+import com.hms.model.RoomTypeStats;
+import com.hms.repository.ArchivedBookingRepository;
 import com.hms.repository.BookingRepository;
+import com.hms.utils.CursorCodec;
+import com.hms.utils.DateUtils;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 @Service
+@Slf4j
+@Timed(value = "hms.booking.service", description = "Time spent in booking service methods", histogram = true)
 public class BookingService {
     private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archivedBookingRepository;
+    private final AvailabilityIndex availabilityIndex;
+    private final BookingCache bookingCache;
+    private final RevenueRollup revenueRollup;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+    private final int batchChunkSize;
+    private final int maxBatchSize;
+    private final BookingWriteBuffer writeBuffer;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     @Autowired
-    public BookingService(BookingRepository bookingRepository) {
+    public BookingService(BookingRepository bookingRepository,
+                          ArchivedBookingRepository archivedBookingRepository,
+                          AvailabilityIndex availabilityIndex,
+                          BookingCache bookingCache,
+                          RevenueRollup revenueRollup,
+                          ApplicationEventPublisher eventPublisher,
+                          TransactionTemplate transactionTemplate,
+                          Validator validator,
+                          @Value("${hms.bookings.page.default-size:50}") int defaultPageSize,
+                          @Value("${hms.bookings.page.max-size:500}") int maxPageSize,
+                          @Value("${hms.bookings.batch.chunk-size:50}") int batchChunkSize,
+                          @Value("${hms.bookings.batch.max-size:10000}") int maxBatchSize,
+                          MeterRegistry meterRegistry,
+                          @Value("${hms.bookings.group-commit.enabled:false}") boolean groupCommitEnabled,
+                          @Value("${hms.bookings.group-commit.max-size:50}") int groupCommitMaxSize,
+                          @Value("${hms.bookings.group-commit.max-delay:5ms}") Duration groupCommitMaxDelay,
+                          @Value("${hms.bookings.group-commit.queue-capacity:2000}") int groupCommitQueueCapacity) {
         this.bookingRepository = bookingRepository;
+        this.archivedBookingRepository = archivedBookingRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.bookingCache = bookingCache;
+        this.revenueRollup = revenueRollup;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.validator = validator;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.batchChunkSize = batchChunkSize;
+        this.maxBatchSize = maxBatchSize;
+        this.writeBuffer = groupCommitEnabled
+                ? new BookingWriteBuffer(this::writeGroup, write -> availabilityIndex.cancel(write.reservation()),
+                        groupCommitMaxSize, groupCommitMaxDelay, groupCommitQueueCapacity, meterRegistry)
+                : null;
+    }
+
+    /**
+     * Writes out any bookings still waiting in the group-commit buffer before the application stops.
+     * Bookings that cannot be written in time release their reservations and fail.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (writeBuffer == null) {
+            return;
+        }
+        int abandoned = writeBuffer.shutdown(Duration.ofSeconds(30));
+        if (abandoned > 0) {
+            log.warn("Abandoned {} queued bookings that could not be written before shutdown", abandoned);
+        }
     }
 
     /**
@@ -39,43 +143,477 @@ public class BookingService {
      * This method can handle both the creation of a new booking and the updating of an existing booking.
      * If the booking has an ID, it updates the existing booking; otherwise, it creates a new booking.
      *
+     * A room is reserved in the availability index before writing, and released again if the write fails.
+     * The saved booking is written through to the booking cache and a {@link BookingChangedEvent} is published
+     * before the reservation is confirmed, so that no other change to the booking can slip in between.
+     *
      * @param booking the booking entity to be saved or updated.
      * @return the saved or updated booking entity with its ID populated.
+     * @throws BookingConflictException if no room of the requested type is free for the whole stay.
      */
     public Booking saveBooking(Booking booking) {
-        return bookingRepository.save(booking);
+        return saveBooking(booking, availabilityIndex.reserve(booking));
+    }
+
+    private Booking saveBooking(Booking booking, AvailabilityIndex.Reservation reservation) {
+        boolean creating = booking.getId() == null;
+        Booking savedBooking;
+        try {
+            savedBooking = bookingRepository.save(booking);
+        } catch (RuntimeException exception) {
+            availabilityIndex.cancel(reservation);
+            if (booking.getId() != null) {
+                // The write may have lost an optimistic lock race, so the cached copy could be stale
+                bookingCache.invalidate(booking.getId());
+            }
+            throw exception;
+        }
+        try {
+            // Confirming releases the claim on the booking; a newer change committed after that must not
+            // find its cache invalidation or event overtaken by this older version
+            bookingCache.put(savedBooking);
+            eventPublisher.publishEvent(creating
+                    ? BookingChangedEvent.created(savedBooking)
+                    : BookingChangedEvent.updated(savedBooking));
+        } finally {
+            availabilityIndex.confirm(reservation, savedBooking.getId());
+        }
+        return savedBooking;
+    }
+
+    /**
+     * Creates a new booking. With group commit enabled ({@code hms.bookings.group-commit.enabled}), the booking
+     * is queued and written together with other concurrently submitted bookings in one transaction; otherwise
+     * it is saved immediately through {@link #saveBooking(Booking)}.
+     *
+     * A room is reserved in the availability index before queueing, so conflicts are reported right away.
+     * If a hold is given, its room is used instead and the hold is used up.
+     *
+     * @param booking the booking to create; any ID or version supplied is ignored.
+     * @param holdId the ID of a hold for the same stay, or null to reserve a room now.
+     * @return a future completed with the saved booking and its generated ID.
+     * @throws BookingConflictException if no room of the requested type is free for the whole stay.
+     * @throws ResourceNotFoundException if the hold does not exist or has expired.
+     * @throws TooManyRequestsException if the group-commit buffer is full.
+     */
+    public CompletableFuture<Booking> createBooking(Booking booking, String holdId) {
+        // Existing bookings are changed through updateBooking, never by posting them again
+        booking.setId(null);
+        booking.setVersion(null);
+        AvailabilityIndex.Reservation reservation = holdId == null
+                ? availabilityIndex.reserve(booking)
+                : availabilityIndex.claim(holdId, booking);
+        if (writeBuffer == null) {
+            return CompletableFuture.completedFuture(saveBooking(booking, reservation));
+        }
+        try {
+            return writeBuffer.submit(booking, reservation);
+        } catch (RuntimeException exception) {
+            availabilityIndex.cancel(reservation);
+            throw exception;
+        }
+    }
+
+    /**
+     * Holds a room for a stay while the guest completes the booking; see {@link AvailabilityIndex#hold}.
+     *
+     * @param roomType the room type.
+     * @param checkIn the first night, inclusive.
+     * @param checkOut the departure date, exclusive.
+     * @return the hold, valid for {@code hms.inventory.hold-ttl}.
+     * @throws BookingConflictException if no room of the requested type is free for the whole stay.
+     */
+    public InventoryHold holdRoom(String roomType, LocalDate checkIn, LocalDate checkOut) {
+        return availabilityIndex.hold(roomType, checkIn, checkOut);
+    }
+
+    /**
+     * Releases a hold that is no longer needed.
+     * @param holdId the ID of the hold.
+     * @throws ResourceNotFoundException if the hold does not exist or has already expired.
+     */
+    public void releaseHold(String holdId) {
+        availabilityIndex.releaseHold(holdId);
+    }
+
+    /**
+     * Writes one group from the group-commit buffer in a single transaction and completes each caller's future.
+     * If the transaction fails, the bookings are retried one at a time so that only the offending ones fail.
+     */
+    private void writeGroup(List<BookingWriteBuffer.PendingWrite> group) {
+        List<Booking> bookings = new ArrayList<>(group.size());
+        List<AvailabilityIndex.Reservation> reservations = new ArrayList<>(group.size());
+        for (BookingWriteBuffer.PendingWrite write : group) {
+            bookings.add(write.booking());
+            reservations.add(write.reservation());
+        }
+        RuntimeException failure = persistChunk(bookings, reservations);
+        if (failure == null) {
+            group.forEach(write -> write.result().complete(write.booking()));
+            return;
+        }
+
+        if (group.size() > 1) {
+            log.warn("Group commit of {} bookings failed, retrying individually: {}", group.size(), failure.getMessage());
+        }
+        for (BookingWriteBuffer.PendingWrite write : group) {
+            RuntimeException itemFailure = group.size() == 1
+                    ? failure
+                    : persistChunk(List.of(write.booking()), List.of(write.reservation()));
+            if (itemFailure == null) {
+                write.result().complete(write.booking());
+            } else {
+                availabilityIndex.cancel(write.reservation());
+                write.result().completeExceptionally(itemFailure);
+            }
+        }
+    }
+
+    /**
+     * Creates many bookings in one call.
+     * Every item is validated individually; invalid items are rejected without affecting the rest.
+     * Valid items are inserted in chunks, each chunk in its own transaction, so that Hibernate can group
+     * the inserts into JDBC batches and take IDs from the pooled sequence allocation.
+     * Items for which no room is free are rejected; a chunk that fails to commit marks all of its items as failed.
+     *
+     * @param bookings the bookings to create; any IDs supplied are ignored.
+     * @return the per-item results in request order, with summary counts.
+     * @throws InvalidRequestException if the batch exceeds the configured maximum size.
+     */
+    public BookingBatchResult saveBookings(List<Booking> bookings) {
+        if (bookings.size() > maxBatchSize) {
+            throw new InvalidRequestException("Batch size " + bookings.size() + " exceeds the maximum of " + maxBatchSize);
+        }
+
+        BatchItemResult[] results = new BatchItemResult[bookings.size()];
+        List<Booking> chunk = new ArrayList<>(batchChunkSize);
+        List<Integer> chunkIndexes = new ArrayList<>(batchChunkSize);
+        List<AvailabilityIndex.Reservation> chunkReservations = new ArrayList<>(batchChunkSize);
+        for (int index = 0; index < bookings.size(); index++) {
+            Booking booking = bookings.get(index);
+            Map<String, String> errors = validate(booking);
+            if (!errors.isEmpty()) {
+                results[index] = BatchItemResult.rejected(index, errors);
+                continue;
+            }
+
+            booking.setId(null);
+            booking.setVersion(null);
+            try {
+                chunkReservations.add(availabilityIndex.reserve(booking));
+            } catch (BookingConflictException | InvalidRequestException exception) {
+                results[index] = BatchItemResult.rejected(index, Map.of("availability", exception.getMessage()));
+                continue;
+            }
+            chunk.add(booking);
+            chunkIndexes.add(index);
+            if (chunk.size() == batchChunkSize) {
+                insertChunk(chunk, chunkIndexes, chunkReservations, results);
+                chunk.clear();
+                chunkIndexes.clear();
+                chunkReservations.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            insertChunk(chunk, chunkIndexes, chunkReservations, results);
+        }
+        return BookingBatchResult.of(Arrays.asList(results));
+    }
+
+    /**
+     * Persists one chunk of bookings in a single transaction and records the outcome for each of them.
+     */
+    private void insertChunk(List<Booking> chunk, List<Integer> chunkIndexes,
+                             List<AvailabilityIndex.Reservation> chunkReservations, BatchItemResult[] results) {
+        RuntimeException failure = persistChunk(chunk, chunkReservations);
+        if (failure != null) {
+            log.warn("Failed to insert a chunk of {} bookings: {}", chunk.size(), failure.getMessage());
+        }
+        for (int i = 0; i < chunk.size(); i++) {
+            int index = chunkIndexes.get(i);
+            if (failure == null) {
+                results[index] = BatchItemResult.created(index, chunk.get(i).getId());
+            } else {
+                availabilityIndex.cancel(chunkReservations.get(i));
+                results[index] = BatchItemResult.failed(index, failure.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Persists new bookings in a single transaction, letting Hibernate group the inserts into JDBC batches.
+     * The persistence context is cleared afterwards so that memory use does not grow with the number of bookings.
+     * On success every reservation is confirmed before a {@link BookingChangedEvent} is published for each booking;
+     * a listener that fails is logged rather than allowed to leave the remaining reservations unsettled.
+     *
+     * @return null if the bookings were stored, otherwise the exception that rolled the transaction back.
+     * The reservations are then left in place for the caller, and the bookings are reset so they can be persisted again.
+     */
+    private RuntimeException persistChunk(List<Booking> chunk, List<AvailabilityIndex.Reservation> chunkReservations) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Booking booking : chunk) {
+                    entityManager.persist(booking);
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+        } catch (RuntimeException exception) {
+            for (Booking booking : chunk) {
+                booking.setId(null);
+                booking.setVersion(null);
+            }
+            return exception;
+        }
+        for (int i = 0; i < chunk.size(); i++) {
+            Long id = chunk.get(i).getId();
+            availabilityIndex.confirm(chunkReservations.get(i), id);
+            // Drop any cached miss for the new ID
+            bookingCache.invalidate(id);
+        }
+        for (Booking booking : chunk) {
+            try {
+                eventPublisher.publishEvent(BookingChangedEvent.created(booking));
+            } catch (RuntimeException exception) {
+                // The bookings are committed: failing their callers now would only invite duplicate retries
+                log.error("A listener failed on the creation of booking {}", booking.getId(), exception);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Validates a booking against its bean validation constraints.
+     * @param booking the booking to validate.
+     * @return a map of field names to validation error messages, empty if the booking is valid.
+     */
+    private Map<String, String> validate(Booking booking) {
+        if (booking == null) {
+            return Map.of("booking", "Booking cannot be null");
+        }
+        Set<ConstraintViolation<Booking>> violations = validator.validate(booking);
+        Map<String, String> errors = new HashMap<>();
+        for (ConstraintViolation<Booking> violation : violations) {
+            errors.put(violation.getPropertyPath().toString(), violation.getMessage());
+        }
+        return errors;
     }
 
     /**
      * Retrieves a Booking by its ID. Throws a ResourceNotFoundException if the booking is not found.
+     * Lookups are served from the booking cache, which also remembers IDs that were not found.
+     * Bookings missing from the booking table are looked up in the archive.
      * @param id The ID of the booking to retrieve.
      * @return The found Booking.
      * @throws ResourceNotFoundException if no Booking is found with the provided ID.
      */
     public Booking getBookingById(Long id) {
-        return bookingRepository.findById(id)
+        return bookingCache.get(id, this::findBookingOrArchived)
                 .orElseThrow(() ->
                         new ResourceNotFoundException("Booking not found with ID: " + id)
                 );
     }
 
+    private Optional<Booking> findBookingOrArchived(Long id) {
+        return bookingRepository.findById(id)
+                .or(() -> archivedBookingRepository.findById(id).map(ArchivedBooking::toBooking));
+    }
+
     /**
-     * Retrieves all bookings from the database.
-     * @return A list of bookings or an empty list if no bookings are found.
+     * Returns the current hit, miss and eviction statistics of the booking cache.
+     * @return a snapshot of the cache statistics.
      */
-    public List<Booking> getAllBookings() {
-        return bookingRepository.findAll();
+    public CacheStatistics getCacheStatistics() {
+        return bookingCache.getStatistics();
+    }
+
+    /**
+     * Retrieves one page of bookings ordered by ID, optionally filtered by room type and check-in date range.
+     * Pages are addressed by an opaque cursor rather than an offset, so every page costs the same to fetch.
+     * Archived bookings are only included when the filter asks for them.
+     *
+     * @param filter the cursor, page size and optional filters.
+     * @return the page of bookings and the cursor for the next page, if any.
+     * @throws InvalidRequestException if the cursor or page size is invalid.
+     */
+    public BookingPage<Booking> getAllBookings(BookingFilter filter) {
+        int limit = resolvePageSize(filter.getLimit());
+        long afterId = CursorCodec.decode(filter.getCursor());
+
+        // Fetch one extra row to learn whether another page exists
+        Date checkInFrom = DateUtils.toDate(filter.getCheckInFrom());
+        Date checkInBefore = toExclusiveDate(filter.getCheckInTo());
+        List<Booking> rows = bookingRepository.findPageAfter(
+                afterId, filter.getRoomType(), checkInFrom, checkInBefore, PageRequest.ofSize(limit + 1));
+        if (filter.isIncludeArchived()) {
+            List<Booking> archived = archivedBookingRepository.findPageAfter(
+                            afterId, filter.getRoomType(), checkInFrom, checkInBefore, PageRequest.ofSize(limit + 1))
+                    .stream()
+                    .map(ArchivedBooking::toBooking)
+                    .toList();
+            rows = mergeById(rows, archived, limit + 1, Booking::getId);
+        }
+        return toPage(rows, limit, Booking::getId);
+    }
+
+    /**
+     * Searches bookings by case-insensitive customer name prefix, room type, and check-in/check-out date ranges.
+     * Results are lightweight summaries selected directly from indexed columns, paginated by cursor like the listing.
+     * Archived bookings are only searched when the criteria ask for them.
+     *
+     * @param criteria the search predicates, cursor and page size.
+     * @return the page of matching booking summaries and the cursor for the next page, if any.
+     * @throws InvalidRequestException if the cursor or page size is invalid.
+     */
+    public BookingPage<BookingSummary> searchBookings(BookingSearchCriteria criteria) {
+        int limit = resolvePageSize(criteria.getLimit());
+        long afterId = CursorCodec.decode(criteria.getCursor());
+        String customerNameKeyPrefix = toNameKeyPrefix(criteria.getCustomerName());
+        Date checkInFrom = DateUtils.toDate(criteria.getCheckInFrom());
+        Date checkInBefore = toExclusiveDate(criteria.getCheckInTo());
+        Date checkOutFrom = DateUtils.toDate(criteria.getCheckOutFrom());
+        Date checkOutBefore = toExclusiveDate(criteria.getCheckOutTo());
+        List<BookingSummary> rows = bookingRepository.search(
+                afterId, customerNameKeyPrefix, criteria.getRoomType(), checkInFrom, checkInBefore,
+                checkOutFrom, checkOutBefore, PageRequest.ofSize(limit + 1));
+        if (criteria.isIncludeArchived()) {
+            List<BookingSummary> archived = archivedBookingRepository.search(
+                    afterId, customerNameKeyPrefix, criteria.getRoomType(), checkInFrom, checkInBefore,
+                    checkOutFrom, checkOutBefore, PageRequest.ofSize(limit + 1));
+            rows = mergeById(rows, archived, limit + 1, BookingSummary::getId);
+        }
+        return toPage(rows, limit, BookingSummary::getId);
+    }
+
+    /**
+     * Trims a result list fetched with one extra row to the page size and derives the next cursor from it.
+     */
+    private static <T> BookingPage<T> toPage(List<T> rows, int limit, Function<T, Long> idOf) {
+        String nextCursor = null;
+        if (rows.size() > limit) {
+            rows = new ArrayList<>(rows.subList(0, limit));
+            nextCursor = CursorCodec.encode(idOf.apply(rows.get(limit - 1)));
+        }
+        return new BookingPage<>(rows, nextCursor, limit);
+    }
+
+    /**
+     * Merges two lists ordered by ID into one ordered list of at most {@code max} rows.
+     * A booking is either in the booking table or in the archive, so the lists never share an ID.
+     */
+    private static <T> List<T> mergeById(List<T> first, List<T> second, int max, Function<T, Long> idOf) {
+        List<T> merged = new ArrayList<>(Math.min(first.size() + second.size(), max));
+        int i = 0;
+        int j = 0;
+        while (merged.size() < max && (i < first.size() || j < second.size())) {
+            if (j == second.size() || (i < first.size() && idOf.apply(first.get(i)) < idOf.apply(second.get(j)))) {
+                merged.add(first.get(i++));
+            } else {
+                merged.add(second.get(j++));
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Converts an inclusive end date into the exclusive start of the following day.
+     */
+    private static Date toExclusiveDate(LocalDate inclusiveEnd) {
+        return DateUtils.toDate(inclusiveEnd == null ? null : inclusiveEnd.plusDays(1));
+    }
+
+    /**
+     * Lower-cases a customer name prefix to match the indexed name key, or returns null when there is none.
+     */
+    private static String toNameKeyPrefix(String prefix) {
+        if (prefix == null || prefix.isBlank()) {
+            return null;
+        }
+        return prefix.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Computes the free capacity between two dates for one room type, or for every known room type.
+     * Answered from the in-memory availability index without querying the database.
+     *
+     * @param roomType the room type, or null for all known room types.
+     * @param checkIn the first night, inclusive.
+     * @param checkOut the departure date, exclusive.
+     * @return the availability of each requested room type.
+     */
+    public List<Availability> getAvailability(String roomType, LocalDate checkIn, LocalDate checkOut) {
+        if (roomType != null) {
+            return List.of(availabilityIndex.getAvailability(roomType, checkIn, checkOut));
+        }
+        List<Availability> availability = new ArrayList<>();
+        for (String knownRoomType : availabilityIndex.getRoomTypes()) {
+            availability.add(availabilityIndex.getAvailability(knownRoomType, checkIn, checkOut));
+        }
+        return availability;
+    }
+
+    /**
+     * Returns the nights sold, revenue and average nightly rate per room type over all bookings.
+     * Answered from incrementally maintained rollups without scanning the bookings table.
+     *
+     * @return the totals per room type.
+     */
+    public List<RoomTypeStats> getRevenueTotals() {
+        return revenueRollup.getTotals();
+    }
+
+    /**
+     * Returns the nights sold, revenue, average rate and occupancy of one night.
+     * Answered from incrementally maintained rollups without scanning the bookings table.
+     *
+     * @param date the night.
+     * @param roomType the room type, or null for all room types.
+     * @return the figures per room type.
+     */
+    public List<RoomTypeStats> getDailyStats(LocalDate date, String roomType) {
+        return revenueRollup.getDaily(date, roomType);
+    }
+
+    /**
+     * Recomputes the revenue and occupancy rollups from the stored bookings.
+     * @return the number of bookings included.
+     */
+    public long rebuildStats() {
+        return revenueRollup.rebuild();
+    }
+
+    /**
+     * Resolves the requested page size against the configured default and maximum.
+     * @param requested the page size asked for by the client, may be null.
+     * @return the page size to use.
+     */
+    private int resolvePageSize(Integer requested) {
+        if (requested == null) {
+            return defaultPageSize;
+        }
+        if (requested < 1) {
+            throw new InvalidRequestException("Page size must be at least 1");
+        }
+        return Math.min(requested, maxPageSize);
     }
 
     /**
      * Updates the booking with the specified ID using the provided booking details.
+     * If the details carry a version, the update is rejected unless it matches the stored version.
+     * Concurrent updates are detected through the booking's version column either way.
      *
      * @param id The ID of the booking to update.
      * @param updatedBookingDetails The updated booking details.
      * @return An Optional containing the updated booking if found, or an empty Optional otherwise.
+     * @throws BookingConflictException if the supplied version is not the current one.
      */
     public Optional<Booking> updateBooking(Long id, Booking updatedBookingDetails) {
         return bookingRepository.findById(id).map(existingBooking -> {
+            Long expectedVersion = updatedBookingDetails.getVersion();
+            if (expectedVersion != null && !expectedVersion.equals(existingBooking.getVersion())) {
+                throw new BookingConflictException("Booking " + id + " has been modified; current version is "
+                        + existingBooking.getVersion());
+            }
             existingBooking.setCustomerName(updatedBookingDetails.getCustomerName());
             existingBooking.setRoomType(updatedBookingDetails.getRoomType());
             existingBooking.setCheckInDate(updatedBookingDetails.getCheckInDate());
@@ -86,4 +624,52 @@ public class BookingService {
             return saveBooking(existingBooking);
         });
     }
+
+    /**
+     * Applies a partial update to the booking with the specified ID.
+     * Only the fields set in the patch are changed, using a single conditional UPDATE statement
+     * without reading the booking first. The booking's cache entry is dropped afterwards.
+     *
+     * @param id The ID of the booking to update.
+     * @param patch The fields to change and, optionally, the version the booking is expected to have.
+     * @return true if the booking was updated, false if no booking exists with the provided ID.
+     * @throws BookingConflictException if the expected version is not the current one, or no room is free for the new stay.
+     */
+    public boolean patchBooking(Long id, BookingPatch patch) {
+        AvailabilityIndex.Reservation reservation = availabilityIndex.reserve(
+                id, patch.getRoomType(), patch.getCheckInDate(), patch.getCheckOutDate());
+        Long version;
+        try {
+            // The change feed needs the version this patch produced so consumers can order it
+            version = transactionTemplate.execute(status -> bookingRepository.patch(
+                    id,
+                    patch.getCustomerName(),
+                    patch.getRoomType(),
+                    patch.getCheckInDate(),
+                    patch.getCheckOutDate(),
+                    patch.getTotalPrice(),
+                    patch.getVersion()
+            ));
+        } catch (RuntimeException exception) {
+            availabilityIndex.cancel(reservation);
+            throw exception;
+        }
+
+        if (version == null) {
+            availabilityIndex.cancel(reservation);
+            // Only the failure path needs to tell a missing booking from a stale version
+            if (patch.getVersion() != null && bookingRepository.existsById(id)) {
+                throw new BookingConflictException("Booking " + id + " has been modified; expected version "
+                        + patch.getVersion());
+            }
+            return false;
+        }
+        try {
+            bookingCache.invalidate(id);
+            eventPublisher.publishEvent(BookingChangedEvent.patched(id, patch, version));
+        } finally {
+            availabilityIndex.confirm(reservation, id);
+        }
+        return true;
+    }
 }
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.service;
+
+import com.hms.exceptions.TooManyRequestsException;
+import com.hms.model.Booking;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Collects concurrently submitted booking creations and hands them to a writer in groups, so that many
+ * requests share one transaction and one commit. A group is written as soon as it holds {@code maxGroupSize}
+ * bookings or its oldest booking has waited {@code maxDelay}, whichever comes first.
+ * <p>
+ * The queue is bounded: once {@code capacity} bookings are waiting, further submissions are refused
+ * instead of queueing without limit. Groups are written one at a time by a single daemon thread.
+ */
+@Slf4j
+class BookingWriteBuffer {
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    /**
+     * A booking waiting to be written, with the reservation taken for it and the future its caller waits on.
+     */
+    record PendingWrite(Booking booking, AvailabilityIndex.Reservation reservation,
+                        long enqueuedAtNanos, CompletableFuture<Booking> result) {
+    }
+
+    private final Consumer<List<PendingWrite>> writer;
+    private final Consumer<PendingWrite> abandon;
+    private final int maxGroupSize;
+    private final long maxDelayNanos;
+    private final BlockingQueue<PendingWrite> queue;
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    private final DistributionSummary groupSizes;
+    private final Timer queueWait;
+    private final Timer groupWrites;
+    private final Counter rejections;
+
+    /**
+     * Creates the buffer and starts its flusher thread.
+     *
+     * @param writer writes one group in a single transaction and completes the future of every item in it.
+     * @param abandon releases what was reserved for a write that will not be made; called before its future fails.
+     * @param maxGroupSize the most bookings written together.
+     * @param maxDelay the longest a booking waits for others to join its group.
+     * @param capacity the most bookings waiting at once.
+     * @param meterRegistry where group size, wait time and rejection metrics are registered.
+     */
+    BookingWriteBuffer(Consumer<List<PendingWrite>> writer, Consumer<PendingWrite> abandon, int maxGroupSize,
+                       Duration maxDelay, int capacity, MeterRegistry meterRegistry) {
+        this.writer = writer;
+        this.abandon = abandon;
+        this.maxGroupSize = maxGroupSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.queue = new ArrayBlockingQueue<>(capacity);
+
+        this.groupSizes = DistributionSummary.builder("hms.bookings.group.commit.size")
+                .description("Bookings written per group commit")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.queueWait = Timer.builder("hms.bookings.group.commit.wait")
+                .description("Time a booking waits in the write buffer before its group is written")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.groupWrites = Timer.builder("hms.bookings.group.commit.write")
+                .description("Time to write and commit one group of bookings")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rejections = Counter.builder("hms.bookings.group.commit.rejected")
+                .description("Bookings refused because the write buffer was full")
+                .register(meterRegistry);
+        Gauge.builder("hms.bookings.group.commit.queue", queue, BlockingQueue::size)
+                .description("Bookings waiting in the write buffer")
+                .register(meterRegistry);
+
+        this.flusher = new Thread(this::run, "booking-group-commit");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Queues a booking for the next group.
+     *
+     * @param booking the booking to create.
+     * @param reservation the availability reservation taken for it.
+     * @return a future completed with the saved booking, or exceptionally if its group could not be written.
+     * @throws TooManyRequestsException if the buffer is full or shutting down.
+     */
+    CompletableFuture<Booking> submit(Booking booking, AvailabilityIndex.Reservation reservation) {
+        PendingWrite write = new PendingWrite(booking, reservation, System.nanoTime(), new CompletableFuture<>());
+        if (!running || !queue.offer(write)) {
+            rejections.increment();
+            throw new TooManyRequestsException("Booking write buffer is full; retry later");
+        }
+        // A shutdown that began after the first check may already have drained the queue for the last time
+        if (!running && queue.remove(write)) {
+            rejections.increment();
+            throw new TooManyRequestsException("Booking write buffer is shutting down; retry later");
+        }
+        return write.result();
+    }
+
+    private void run() {
+        List<PendingWrite> group = new ArrayList<>(maxGroupSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingWrite first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                // Under backlog the deadline has already passed, so the group takes whatever is queued
+                long deadline = first.enqueuedAtNanos() + maxDelayNanos;
+                while (group.size() < maxGroupSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingWrite next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                }
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!group.isEmpty()) {
+                write(group);
+                group.clear();
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+        }
+    }
+
+    private void write(List<PendingWrite> group) {
+        long startedAt = System.nanoTime();
+        groupSizes.record(group.size());
+        for (PendingWrite write : group) {
+            queueWait.record(startedAt - write.enqueuedAtNanos(), TimeUnit.NANOSECONDS);
+        }
+        try {
+            writer.accept(group);
+        } catch (RuntimeException exception) {
+            log.error("Failed to write a group of {} bookings", group.size(), exception);
+            for (PendingWrite write : group) {
+                if (!write.result().isDone()) {
+                    fail(write, exception);
+                }
+            }
+        }
+        groupWrites.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+    }
+
+    private void fail(PendingWrite write, Throwable cause) {
+        try {
+            abandon.accept(write);
+        } finally {
+            write.result().completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * Stops accepting bookings, writes those already queued and stops the flusher thread.
+     * Bookings still queued when the timeout elapses are abandoned and their futures fail.
+     *
+     * @param timeout how long to wait for queued bookings to be written.
+     * @return the number of bookings abandoned.
+     */
+    int shutdown(Duration timeout) {
+        running = false;
+        try {
+            flusher.join(timeout.toMillis());
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        List<PendingWrite> abandoned = new ArrayList<>();
+        queue.drainTo(abandoned);
+        IllegalStateException cause = new IllegalStateException("Application is shutting down");
+        abandoned.forEach(write -> fail(write, cause));
+        return abandoned.size();
+    }
+}
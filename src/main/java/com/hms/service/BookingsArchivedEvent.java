@@ -0,0 +1,28 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.service;
+
+import java.util.List;
+
+/**
+ * Published by {@link BookingArchiver} after a batch of bookings has been moved to the archive and the move is committed.
+ *
+ * @param bookingIds the IDs of the archived bookings.
+ */
+public record BookingsArchivedEvent(List<Long> bookingIds) {
+}
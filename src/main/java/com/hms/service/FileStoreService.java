@@ -0,0 +1,178 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.service;
+
+import com.hms.config.FileStoreProperties;
+import com.hms.exceptions.InvalidRequestException;
+import com.hms.model.SnapshotInfo;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Maintenance of the file-backed store ({@code file-store} profile): forces the database file to disk every
+ * {@code hms.store.fsync-interval}, and writes online snapshots with H2's {@code BACKUP TO}, which copies a
+ * consistent state of the database while it keeps serving reads and writes.
+ * Snapshots are picked up by {@link com.hms.config.FileStoreEnvironmentPostProcessor} on the next startup.
+ * Created eagerly even with lazy initialization, so that the periodic sync starts with the application.
+ */
+@Service
+@Lazy(false)
+@Slf4j
+public class FileStoreService {
+    private static final DateTimeFormatter SNAPSHOT_TIMESTAMP =
+            DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmssSSS'Z'").withZone(ZoneOffset.UTC);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final FileStoreProperties properties;
+    private final ScheduledExecutorService fsyncExecutor;
+
+    @Autowired
+    public FileStoreService(JdbcTemplate jdbcTemplate, FileStoreProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        if (properties.isEnabled()) {
+            this.fsyncExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "file-store-fsync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long intervalMillis = properties.getFsyncInterval().toMillis();
+            fsyncExecutor.scheduleWithFixedDelay(this::sync, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.fsyncExecutor = null;
+        }
+    }
+
+    /**
+     * Flushes pending commits and forces the database file to disk one last time before shutdown.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (fsyncExecutor != null) {
+            fsyncExecutor.shutdownNow();
+            sync();
+        }
+    }
+
+    private void sync() {
+        try {
+            jdbcTemplate.execute("CHECKPOINT SYNC");
+        } catch (RuntimeException exception) {
+            log.warn("Forcing the database file to disk failed: {}", exception.getMessage());
+        }
+    }
+
+    /**
+     * Writes a snapshot of the database to the snapshot directory and removes snapshots beyond the retention count.
+     * The archive is written under a temporary name first, so a partial snapshot is never restored.
+     *
+     * @return the snapshot written.
+     * @throws InvalidRequestException if the file-backed store is not enabled.
+     */
+    public SnapshotInfo createSnapshot() {
+        requireEnabled();
+        Path directory = properties.resolveSnapshotDirectory();
+        Instant createdAt = Instant.now();
+        Path snapshot = directory.resolve(properties.getDatabaseName() + "-" + SNAPSHOT_TIMESTAMP.format(createdAt) + ".zip");
+        Path partial = snapshot.resolveSibling(snapshot.getFileName() + ".partial");
+
+        long startedAt = System.nanoTime();
+        try {
+            Files.createDirectories(directory);
+            jdbcTemplate.execute("BACKUP TO '" + partial.toAbsolutePath().toString().replace("'", "''") + "'");
+            Files.move(partial, snapshot, StandardCopyOption.ATOMIC_MOVE);
+            long durationMillis = (System.nanoTime() - startedAt) / 1_000_000;
+            SnapshotInfo info = new SnapshotInfo(snapshot.getFileName().toString(), Files.size(snapshot), createdAt,
+                    durationMillis);
+            log.info("Wrote snapshot {} ({} bytes) in {} ms", info.getFileName(), info.getSizeBytes(), durationMillis);
+            deleteExpiredSnapshots();
+            return info;
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Cannot write snapshot " + snapshot, exception);
+        }
+    }
+
+    /**
+     * Lists the snapshots in the snapshot directory, newest first.
+     *
+     * @return the snapshots available for restore.
+     * @throws InvalidRequestException if the file-backed store is not enabled.
+     */
+    public List<SnapshotInfo> listSnapshots() {
+        requireEnabled();
+        List<SnapshotInfo> snapshots = new ArrayList<>();
+        for (Path snapshot : snapshotFilesNewestFirst()) {
+            try {
+                snapshots.add(new SnapshotInfo(snapshot.getFileName().toString(), Files.size(snapshot),
+                        Files.getLastModifiedTime(snapshot).toInstant(), null));
+            } catch (IOException exception) {
+                // Removed concurrently by retention
+            }
+        }
+        return snapshots;
+    }
+
+    private void deleteExpiredSnapshots() throws IOException {
+        List<Path> snapshots = snapshotFilesNewestFirst();
+        for (Path expired : snapshots.subList(Math.min(properties.getSnapshotRetention(), snapshots.size()), snapshots.size())) {
+            Files.deleteIfExists(expired);
+            log.info("Deleted expired snapshot {}", expired.getFileName());
+        }
+    }
+
+    private List<Path> snapshotFilesNewestFirst() {
+        Path directory = properties.resolveSnapshotDirectory();
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            // Names carry a sortable UTC timestamp
+            return files.filter(file -> file.getFileName().toString().endsWith(".zip"))
+                    .sorted(Comparator.comparing((Path file) -> file.getFileName().toString()).reversed())
+                    .toList();
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Cannot list snapshots in " + directory, exception);
+        }
+    }
+
+    private void requireEnabled() {
+        if (!properties.isEnabled()) {
+            throw new InvalidRequestException("Snapshots require file-backed storage (the file-store profile)");
+        }
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.service;
+
+import com.hms.config.InventoryProperties;
+import com.hms.model.Booking;
+import com.hms.model.BookingPatch;
+import com.hms.model.BookingStay;
+import com.hms.model.RoomTypeStats;
+import com.hms.repository.ArchivedBookingRepository;
+import com.hms.repository.BookingRepository;
+import com.hms.utils.DateUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Incrementally maintained revenue and occupancy rollups per room type and night.
+ * Each booking contributes one night sold and an even share of its total price to every night of its stay.
+ * <p>
+ * The rollups remember each booking's current contribution, so a change is applied as the delta between
+ * the old and the new contribution, and queries are answered from the rollups without scanning bookings.
+ * Changes are published after their claim on the booking is released and may arrive out of order,
+ * so a change is only applied if it carries a newer version than the contribution it replaces.
+ * Room types are totalled under their configured spelling, matching the inventory.
+ */
+@Component
+@Slf4j
+public class RevenueRollup {
+    private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archivedBookingRepository;
+    private final InventoryProperties inventoryProperties;
+    private final AvailabilityIndex availabilityIndex;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    private final Map<String, RoomTypeTotals> roomTypes = new ConcurrentHashMap<>();
+    private final Map<Long, Contribution> contributions = new ConcurrentHashMap<>();
+    // Changes share the read lock; a rebuild takes the write lock so that no change is lost or counted twice
+    private final ReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+
+    @Autowired
+    public RevenueRollup(BookingRepository bookingRepository,
+                         ArchivedBookingRepository archivedBookingRepository,
+                         InventoryProperties inventoryProperties,
+                         AvailabilityIndex availabilityIndex,
+                         PlatformTransactionManager transactionManager) {
+        this.bookingRepository = bookingRepository;
+        this.archivedBookingRepository = archivedBookingRepository;
+        this.inventoryProperties = inventoryProperties;
+        this.availabilityIndex = availabilityIndex;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * What one booking adds to the rollups: its room type, nights {@code [startDay, endDay)} and price,
+     * as of the given version of the booking.
+     */
+    private record Contribution(String roomType, long startDay, long endDay, double price, Long version) {
+
+        static Contribution of(BookingStay stay) {
+            return of(stay.getRoomType(), epochDay(stay.getCheckInDate()), epochDay(stay.getCheckOutDate()),
+                    (double) stay.getTotalPrice(), stay.getVersion());
+        }
+
+        static Contribution of(String roomType, Long startDay, Long endDay, Double price, Long version) {
+            if (roomType == null || startDay == null || endDay == null || price == null || endDay < startDay) {
+                return null;
+            }
+            return new Contribution(roomType, startDay, Math.max(endDay, startDay + 1), price, version);
+        }
+
+        /**
+         * Whether a change to the given version replaces this contribution. Unversioned changes always do.
+         */
+        boolean isSupersededBy(Long changeVersion) {
+            return version == null || changeVersion == null || changeVersion > version;
+        }
+
+        static Long epochDay(Date date) {
+            return date == null ? null : DateUtils.toLocalDate(date).toEpochDay();
+        }
+
+        long nights() {
+            return endDay - startDay;
+        }
+    }
+
+    private static final class DayTotals {
+        long nightsSold;
+        double revenue;
+    }
+
+    private static final class RoomTypeTotals {
+        final Map<Long, DayTotals> days = new HashMap<>();
+        long nightsSold;
+        double revenue;
+
+        synchronized void apply(Contribution contribution, int sign) {
+            double nightlyRate = contribution.price() / contribution.nights();
+            for (long day = contribution.startDay(); day < contribution.endDay(); day++) {
+                DayTotals totals = days.computeIfAbsent(day, key -> new DayTotals());
+                totals.nightsSold += sign;
+                totals.revenue += sign * nightlyRate;
+                if (totals.nightsSold == 0) {
+                    days.remove(day);
+                }
+            }
+            nightsSold += sign * contribution.nights();
+            revenue += sign * contribution.price();
+        }
+    }
+
+    /**
+     * Applies the delta of a committed booking change to the rollups.
+     * @param event the change published by the booking service.
+     */
+    @EventListener
+    public void onBookingChanged(BookingChangedEvent event) {
+        rebuildLock.readLock().lock();
+        try {
+            if (event.booking() != null) {
+                Booking booking = event.booking();
+                replace(event.bookingId(), event.version(), Contribution.of(
+                        booking.getRoomType(),
+                        Contribution.epochDay(booking.getCheckInDate()),
+                        Contribution.epochDay(booking.getCheckOutDate()),
+                        (double) booking.getTotalPrice(),
+                        event.version()));
+            } else {
+                applyPatch(event.bookingId(), event.version(), event.patch());
+            }
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Stops tracking archived bookings individually. Their contributions stay in the rollups, since archived
+     * stays still count towards the figures, but they can no longer change.
+     * @param event the archival published by the booking archiver.
+     */
+    @EventListener
+    public void onBookingsArchived(BookingsArchivedEvent event) {
+        rebuildLock.readLock().lock();
+        try {
+            event.bookingIds().forEach(contributions::remove);
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    private void applyPatch(Long bookingId, Long version, BookingPatch patch) {
+        // Without a contribution to merge with, a full booking is needed before it counts
+        contributions.computeIfPresent(bookingId, (id, previous) -> {
+            if (!previous.isSupersededBy(version)) {
+                return previous;
+            }
+            Contribution updated = Contribution.of(
+                    patch.getRoomType() != null ? patch.getRoomType() : previous.roomType(),
+                    patch.getCheckInDate() != null ? Contribution.epochDay(patch.getCheckInDate()) : previous.startDay(),
+                    patch.getCheckOutDate() != null ? Contribution.epochDay(patch.getCheckOutDate()) : previous.endDay(),
+                    patch.getTotalPrice() != null ? (double) patch.getTotalPrice() : previous.price(),
+                    version);
+            apply(previous, -1);
+            apply(updated, 1);
+            return updated;
+        });
+    }
+
+    private void replace(Long bookingId, Long version, Contribution contribution) {
+        // The totals are updated while the entry is locked, so that concurrent changes apply in version order
+        contributions.compute(bookingId, (id, previous) -> {
+            if (previous != null && !previous.isSupersededBy(version)) {
+                return previous;
+            }
+            apply(previous, -1);
+            apply(contribution, 1);
+            return contribution;
+        });
+    }
+
+    private void apply(Contribution contribution, int sign) {
+        if (contribution != null) {
+            roomTypes.computeIfAbsent(inventoryProperties.configuredRoomType(contribution.roomType()),
+                    key -> new RoomTypeTotals()).apply(contribution, sign);
+        }
+    }
+
+    /**
+     * Returns the nights sold, revenue and average nightly rate of every room type over all bookings.
+     * @return the totals per room type, ordered by room type.
+     */
+    public List<RoomTypeStats> getTotals() {
+        List<RoomTypeStats> stats = new ArrayList<>();
+        for (Map.Entry<String, RoomTypeTotals> entry : new TreeMap<>(roomTypes).entrySet()) {
+            RoomTypeTotals totals = entry.getValue();
+            synchronized (totals) {
+                stats.add(new RoomTypeStats(entry.getKey(), null, totals.nightsSold, totals.revenue,
+                        averageRate(totals.revenue, totals.nightsSold), null));
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Returns the nights sold, revenue, average rate and occupancy of one night.
+     *
+     * @param date the night.
+     * @param roomType the room type, or null for every room type with bookings.
+     * @return the figures per room type, ordered by room type.
+     */
+    public List<RoomTypeStats> getDaily(LocalDate date, String roomType) {
+        List<RoomTypeStats> stats = new ArrayList<>();
+        String configuredRoomType = inventoryProperties.configuredRoomType(roomType);
+        Map<String, RoomTypeTotals> selected = roomType == null
+                ? new TreeMap<>(roomTypes)
+                : Map.of(configuredRoomType, roomTypes.getOrDefault(configuredRoomType, new RoomTypeTotals()));
+        for (Map.Entry<String, RoomTypeTotals> entry : selected.entrySet()) {
+            long nightsSold = 0;
+            double revenue = 0;
+            RoomTypeTotals totals = entry.getValue();
+            synchronized (totals) {
+                DayTotals day = totals.days.get(date.toEpochDay());
+                if (day != null) {
+                    nightsSold = day.nightsSold;
+                    revenue = day.revenue;
+                }
+            }
+            int capacity = availabilityIndex.capacityOf(entry.getKey());
+            stats.add(new RoomTypeStats(entry.getKey(), date, nightsSold, revenue, averageRate(revenue, nightsSold),
+                    capacity > 0 ? (double) nightsSold / capacity : null));
+        }
+        return stats;
+    }
+
+    /**
+     * Builds the rollups once the application context is ready, before command line runners seed any data.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void onContextRefreshed() {
+        rebuild();
+    }
+
+    /**
+     * Recomputes all rollups from the stored bookings, including archived ones. Booking changes wait while the rebuild runs.
+     *
+     * @return the number of bookings included.
+     */
+    public long rebuild() {
+        rebuildLock.writeLock().lock();
+        try {
+            roomTypes.clear();
+            contributions.clear();
+            long count = readOnlyTransactionTemplate.execute(status -> {
+                long included = 0;
+                try (Stream<BookingStay> stays = bookingRepository.streamStays()) {
+                    for (BookingStay stay : (Iterable<BookingStay>) stays::iterator) {
+                        replace(stay.getId(), stay.getVersion(), Contribution.of(stay));
+                        included++;
+                    }
+                }
+                try (Stream<BookingStay> archived = archivedBookingRepository.streamStays()) {
+                    for (BookingStay stay : (Iterable<BookingStay>) archived::iterator) {
+                        apply(Contribution.of(stay), 1);
+                        included++;
+                    }
+                }
+                return included;
+            });
+            log.info("Revenue rollups rebuilt from {} bookings", count);
+            return count;
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+    }
+
+    private static double averageRate(double revenue, long nightsSold) {
+        return nightsSold == 0 ? 0 : revenue / nightsSold;
+    }
+}
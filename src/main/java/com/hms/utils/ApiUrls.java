@@ -20,4 +20,19 @@ public class ApiUrls {
     public static final String API_URL_BOOKINGS = "/bookings";
     public static final String API_URL_GET_BOOKING_BY_ID = "/{id}";
     public static final String API_URL_UPDATE_BOOKING = "/{id}";
+    public static final String API_URL_PATCH_BOOKING = "/{id}";
+    public static final String API_URL_EXPORT_BOOKINGS = "/export";
+    public static final String API_URL_CHANGES = "/changes";
+    public static final String API_URL_BATCH_BOOKINGS = "/batch";
+    public static final String API_URL_AVAILABILITY = "/availability";
+    public static final String API_URL_HOLDS = "/holds";
+    public static final String API_URL_HOLD_BY_ID = "/holds/{holdId}";
+    public static final String API_URL_SEARCH = "/search";
+    public static final String API_URL_CACHE_STATS = "/cache/stats";
+    public static final String API_URL_STATS = "/stats";
+    public static final String API_URL_DAILY_STATS = "/stats/daily";
+    public static final String API_URL_REBUILD_STATS = "/stats/rebuild";
+    public static final String API_URL_ARCHIVE = "/archive";
+    public static final String API_URL_STORE = "/store";
+    public static final String API_URL_SNAPSHOTS = "/snapshots";
 }
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hms.utils;
+
+import com.hms.exceptions.InvalidRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes and decodes the opaque cursor tokens used by keyset pagination.
+ * A cursor carries the ID of the last row of the previous page.
+ */
+public final class CursorCodec {
+
+    private CursorCodec() {
+    }
+
+    /**
+     * Encodes the last seen ID as a URL-safe token.
+     *
+     * @param lastId the ID of the last row returned.
+     * @return the cursor token.
+     */
+    public static String encode(long lastId) {
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(Long.toString(lastId).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Decodes a cursor token back into the last seen ID.
+     *
+     * @param cursor the cursor token, or null to start from the beginning.
+     * @return the last seen ID, or 0 when no cursor was given.
+     * @throws InvalidRequestException if the token is malformed.
+     */
+    public static long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            byte[] decoded = Base64.getUrlDecoder().decode(cursor);
+            return Long.parseLong(new String(decoded, StandardCharsets.US_ASCII));
+        } catch (IllegalArgumentException exception) {
+            throw new InvalidRequestException("Invalid cursor: " + cursor);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hms.utils;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+
+/**
+ * Conversions between {@link LocalDate} and the {@link Date} values stored on bookings.
+ * Days are interpreted in the system default time zone, matching how bookings are created.
+ */
+public final class DateUtils {
+
+    private DateUtils() {
+    }
+
+    /**
+     * Converts a LocalDate to a Date at the start of that day.
+     *
+     * @param localDate the date to convert, may be null.
+     * @return the converted Date, or null if the input was null.
+     */
+    public static Date toDate(LocalDate localDate) {
+        if (localDate == null) {
+            return null;
+        }
+        return Date.from(localDate.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    /**
+     * Converts a Date to the LocalDate it falls on.
+     *
+     * @param date the date to convert, may be null.
+     * @return the converted LocalDate, or null if the input was null.
+     */
+    public static LocalDate toLocalDate(Date date) {
+        if (date == null) {
+            return null;
+        }
+        return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+}
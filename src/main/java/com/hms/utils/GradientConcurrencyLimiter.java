@@ -0,0 +1,168 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.utils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit that adapts to latency, in the style of the gradient limiters of TCP Vegas and
+ * Netflix's concurrency-limits.
+ * <p>
+ * Completed calls report their round-trip time. Once per sample window the average RTT of the window is
+ * compared with a slowly moving baseline: while the window is no slower than {@code tolerance} times the
+ * baseline, the limit grows by about its square root; when calls slow down, the limit shrinks in proportion,
+ * by at most half per window. The limit does not grow while fewer than half of the allowed calls are in flight,
+ * since the latency then says nothing about what a higher limit would do.
+ * <p>
+ * Acquiring and releasing are lock-free; the limit is recomputed by whichever release closes a window.
+ */
+public final class GradientConcurrencyLimiter {
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final long windowNanos;
+    private final int minWindowSamples;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+
+    private final LongAdder windowRttNanos = new LongAdder();
+    private final LongAdder windowSamples = new LongAdder();
+    private final AtomicInteger windowMaxInFlight = new AtomicInteger();
+    private final ReentrantLock updateLock = new ReentrantLock();
+    // Only written while holding updateLock
+    private volatile long windowStart = System.nanoTime();
+    private volatile double baselineRttNanos;
+
+    /**
+     * @param initialLimit the limit to start with.
+     * @param minLimit the lowest the limit may fall to.
+     * @param maxLimit the highest the limit may grow to.
+     * @param tolerance how much slower than the baseline a window may be before the limit shrinks, e.g. 1.5.
+     * @param smoothing the weight of each new limit estimate, between 0 (never change) and 1 (no smoothing).
+     * @param windowNanos the minimum length of a sample window.
+     * @param minWindowSamples the minimum number of samples in a window.
+     */
+    public GradientConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance,
+                                      double smoothing, long windowNanos, int minWindowSamples) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= max");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.windowNanos = windowNanos;
+        this.minWindowSamples = minWindowSamples;
+        this.limit = Math.max(minLimit, Math.min(initialLimit, maxLimit));
+    }
+
+    /**
+     * Takes a slot if fewer calls than the limit are in flight.
+     * @return true if the call may proceed and must later be released, false if it should be rejected.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                windowMaxInFlight.accumulateAndGet(current + 1, Math::max);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases a slot and records the call's round-trip time.
+     * @param rttNanos how long the call took.
+     */
+    public void release(long rttNanos) {
+        inFlight.decrementAndGet();
+        windowRttNanos.add(rttNanos);
+        windowSamples.increment();
+        long now = System.nanoTime();
+        if (windowSamples.sum() >= minWindowSamples && now - windowStart >= windowNanos && updateLock.tryLock()) {
+            try {
+                closeWindow(now);
+            } finally {
+                updateLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Releases a slot without recording a round-trip time, for calls that failed or were abandoned.
+     */
+    public void releaseWithoutSample() {
+        inFlight.decrementAndGet();
+    }
+
+    private void closeWindow(long now) {
+        long samples = windowSamples.sumThenReset();
+        long rttSum = windowRttNanos.sumThenReset();
+        int maxInFlight = windowMaxInFlight.getAndSet(inFlight.get());
+        windowStart = now;
+        if (samples == 0) {
+            return;
+        }
+        double windowRtt = Math.max(1.0, (double) rttSum / samples);
+
+        double baseline = baselineRttNanos;
+        baseline = baseline == 0 ? windowRtt : baseline + (windowRtt - baseline) * 0.05;
+        // After a long slowdown the baseline has drifted up; let it fall back quickly once latency recovers
+        if (baseline > 2 * windowRtt) {
+            baseline = Math.max(windowRtt, baseline * 0.9);
+        }
+        baselineRttNanos = baseline;
+
+        int current = limit;
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * baseline / windowRtt));
+        double estimate = current * gradient + Math.sqrt(current);
+        if (maxInFlight < current / 2 && estimate > current) {
+            estimate = current;
+        }
+        double smoothed = current * (1 - smoothing) + estimate * smoothing;
+        limit = (int) Math.max(minLimit, Math.min(maxLimit, Math.round(smoothed)));
+    }
+
+    /**
+     * @return the current concurrency limit.
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return the number of calls currently in flight.
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return the baseline round-trip time in nanoseconds, 0 before the first window has closed.
+     */
+    public double getBaselineRttNanos() {
+        return baselineRttNanos;
+    }
+}
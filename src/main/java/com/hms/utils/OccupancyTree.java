@@ -0,0 +1,116 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.utils;
+
+/**
+ * Sparse segment tree over epoch days that supports adding a value to a range of days
+ * and querying the maximum value over a range, both in O(log D) where D is the size of the day domain.
+ * Nodes are created on demand, so memory grows with the number of distinct ranges rather than the domain.
+ * <p>
+ * Ranges are half-open, {@code [fromDay, toDay)}. This class is not thread-safe.
+ */
+public final class OccupancyTree {
+    // 2^17 days from the epoch reaches well into the 24th century
+    private static final int DAY_BITS = 17;
+    public static final long MAX_DAY = 1L << DAY_BITS;
+
+    private final Node root = new Node();
+
+    private static final class Node {
+        // Value added to every day in this node's range
+        int tag;
+        // Maximum over this node's range, including its own tag
+        int max;
+        Node left;
+        Node right;
+    }
+
+    /**
+     * Adds {@code delta} to every day in {@code [fromDay, toDay)}.
+     *
+     * @param fromDay the first day, inclusive.
+     * @param toDay the last day, exclusive.
+     * @param delta the amount to add, may be negative.
+     */
+    public void add(long fromDay, long toDay, int delta) {
+        checkRange(fromDay, toDay);
+        add(root, 0, MAX_DAY, fromDay, toDay, delta);
+    }
+
+    /**
+     * Returns the maximum value of any day in {@code [fromDay, toDay)}.
+     *
+     * @param fromDay the first day, inclusive.
+     * @param toDay the last day, exclusive.
+     * @return the maximum value over the range, 0 if nothing was ever added there.
+     */
+    public int max(long fromDay, long toDay) {
+        checkRange(fromDay, toDay);
+        return max(root, 0, MAX_DAY, fromDay, toDay);
+    }
+
+    private static void add(Node node, long low, long high, long fromDay, long toDay, int delta) {
+        if (fromDay <= low && high <= toDay) {
+            node.tag += delta;
+            node.max += delta;
+            return;
+        }
+        long mid = (low + high) >>> 1;
+        if (fromDay < mid) {
+            if (node.left == null) {
+                node.left = new Node();
+            }
+            add(node.left, low, mid, fromDay, toDay, delta);
+        }
+        if (toDay > mid) {
+            if (node.right == null) {
+                node.right = new Node();
+            }
+            add(node.right, mid, high, fromDay, toDay, delta);
+        }
+        node.max = node.tag + Math.max(maxOf(node.left), maxOf(node.right));
+    }
+
+    private static int max(Node node, long low, long high, long fromDay, long toDay) {
+        if (node == null) {
+            return 0;
+        }
+        if (fromDay <= low && high <= toDay) {
+            return node.max;
+        }
+        long mid = (low + high) >>> 1;
+        int best = Integer.MIN_VALUE;
+        if (fromDay < mid) {
+            best = max(node.left, low, mid, fromDay, toDay);
+        }
+        if (toDay > mid) {
+            best = Math.max(best, max(node.right, mid, high, fromDay, toDay));
+        }
+        return node.tag + best;
+    }
+
+    private static int maxOf(Node node) {
+        return node == null ? 0 : node.max;
+    }
+
+    private static void checkRange(long fromDay, long toDay) {
+        if (fromDay < 0 || toDay > MAX_DAY || fromDay >= toDay) {
+            throw new IllegalArgumentException("Invalid day range [" + fromDay + ", " + toDay + ")");
+        }
+    }
+}
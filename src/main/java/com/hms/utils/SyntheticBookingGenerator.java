@@ -0,0 +1,140 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.utils;
+
+import com.hms.model.Booking;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Generates plausible bookings for load and performance testing.
+ * <ul>
+ *     <li>Room types follow a skewed mix: mostly Standard, fewer Deluxe and Family rooms, few Suites.</li>
+ *     <li>Check-in dates follow a seasonal curve peaking in mid-July, with more Friday and Saturday arrivals.</li>
+ *     <li>Stays are mostly short, with a long tail up to two weeks.</li>
+ *     <li>Nightly rates are drawn from a price band per room type and rise with demand for the season.</li>
+ * </ul>
+ * Chunks are generated independently from the seed and the chunk index, so they can be produced
+ * in parallel and in any order with identical results.
+ */
+public final class SyntheticBookingGenerator {
+    private static final String[] ROOM_TYPES = {"Standard", "Deluxe", "Family", "Suite"};
+    private static final double[] ROOM_TYPE_WEIGHTS = {0.50, 0.30, 0.12, 0.08};
+    private static final int[][] NIGHTLY_RATE_BANDS = {{90, 140}, {150, 220}, {180, 260}, {300, 500}};
+    private static final String[] FIRST_NAMES = {
+            "James", "Mary", "Robert", "Patricia", "John", "Jennifer", "Michael", "Linda", "David", "Elizabeth",
+            "William", "Barbara", "Richard", "Susan", "Joseph", "Jessica", "Thomas", "Sarah", "Wei", "Aiko",
+            "Carlos", "Sofia", "Mohammed", "Fatima", "Ivan", "Olga", "Raj", "Priya", "Kwame", "Amara"
+    };
+    private static final String[] LAST_NAMES = {
+            "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis", "Rodriguez", "Martinez",
+            "Hernandez", "Lopez", "Wilson", "Anderson", "Taylor", "Moore", "Jackson", "Martin", "Lee", "Zhang",
+            "Tanaka", "Silva", "Khan", "Ivanova", "Patel", "Mensah", "Okafor", "Novak", "Schmidt", "Rossi"
+    };
+    private static final int MAX_NIGHTS = 14;
+    private static final double MEAN_EXTRA_NIGHTS = 1.8;
+    private static final int PEAK_DAY_OF_YEAR = 196;
+    private static final double SEASONAL_AMPLITUDE = 0.6;
+    private static final double WEEKEND_BOOST = 1.3;
+    private static final double MAX_DEMAND = (1 + SEASONAL_AMPLITUDE) * WEEKEND_BOOST;
+    private static final long CHUNK_SEED_STRIDE = 0x9E3779B97F4A7C15L;
+
+    private final long seed;
+    private final LocalDate startDate;
+    private final int horizonDays;
+
+    /**
+     * @param seed the random seed of the data set.
+     * @param startDate the first possible check-in date.
+     * @param horizonDays the number of days after the start date over which check-ins are spread.
+     */
+    public SyntheticBookingGenerator(long seed, LocalDate startDate, int horizonDays) {
+        if (horizonDays < 1) {
+            throw new IllegalArgumentException("horizonDays must be at least 1");
+        }
+        this.seed = seed;
+        this.startDate = startDate;
+        this.horizonDays = horizonDays;
+    }
+
+    /**
+     * Generates one chunk of new bookings without IDs.
+     *
+     * @param chunkIndex the index of the chunk within the data set.
+     * @param count the number of bookings in the chunk.
+     * @return the generated bookings.
+     */
+    public List<Booking> generateChunk(long chunkIndex, int count) {
+        SplittableRandom random = new SplittableRandom(seed + chunkIndex * CHUNK_SEED_STRIDE);
+        List<Booking> bookings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            bookings.add(generate(random));
+        }
+        return bookings;
+    }
+
+    private Booking generate(SplittableRandom random) {
+        int roomTypeIndex = pickRoomType(random);
+
+        // Rejection sampling against the demand curve yields seasonal check-in dates
+        LocalDate checkIn;
+        double demand;
+        do {
+            checkIn = startDate.plusDays(random.nextInt(horizonDays));
+            demand = demand(checkIn);
+        } while (random.nextDouble() * MAX_DEMAND > demand);
+
+        int nights = Math.min(MAX_NIGHTS, 1 + (int) (-Math.log(1 - random.nextDouble()) * MEAN_EXTRA_NIGHTS));
+        int[] band = NIGHTLY_RATE_BANDS[roomTypeIndex];
+        double nightlyRate = (band[0] + random.nextDouble() * (band[1] - band[0])) * (0.75 + demand / MAX_DEMAND * 0.5);
+
+        Booking booking = new Booking();
+        booking.setCustomerName(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " "
+                + LAST_NAMES[random.nextInt(LAST_NAMES.length)]);
+        booking.setRoomType(ROOM_TYPES[roomTypeIndex]);
+        booking.setCheckInDate(DateUtils.toDate(checkIn));
+        booking.setCheckOutDate(DateUtils.toDate(checkIn.plusDays(nights)));
+        booking.setTotalPrice(Math.round(nightlyRate * nights * 100) / 100f);
+        return booking;
+    }
+
+    private static int pickRoomType(SplittableRandom random) {
+        double roll = random.nextDouble();
+        for (int i = 0; i < ROOM_TYPE_WEIGHTS.length - 1; i++) {
+            roll -= ROOM_TYPE_WEIGHTS[i];
+            if (roll < 0) {
+                return i;
+            }
+        }
+        return ROOM_TYPE_WEIGHTS.length - 1;
+    }
+
+    /**
+     * Relative demand for arrivals on a date, between {@code 1 - SEASONAL_AMPLITUDE} and {@link #MAX_DEMAND}.
+     */
+    private static double demand(LocalDate date) {
+        double season = 1 + SEASONAL_AMPLITUDE * Math.cos(2 * Math.PI * (date.getDayOfYear() - PEAK_DAY_OF_YEAR) / 365.0);
+        DayOfWeek dayOfWeek = date.getDayOfWeek();
+        boolean weekend = dayOfWeek == DayOfWeek.FRIDAY || dayOfWeek == DayOfWeek.SATURDAY;
+        return weekend ? season * WEEKEND_BOOST : season;
+    }
+}
@@ -0,0 +1,37 @@
+-- Schema of the booking and booking archive tables, matching the Booking and ArchivedBooking entities.
+-- Used when Hibernate only validates the schema (fast-startup profile); keep in sync with Booking.java and ArchivedBooking.java.
+
+CREATE SEQUENCE IF NOT EXISTS booking_sequence START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS booking (
+    id BIGINT NOT NULL,
+    customer_name VARCHAR(255),
+    room_type VARCHAR(255),
+    check_in_date TIMESTAMP(6),
+    check_out_date TIMESTAMP(6),
+    total_price REAL NOT NULL,
+    version BIGINT,
+    customer_name_key VARCHAR(255) GENERATED ALWAYS AS (LOWER(customer_name)),
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_booking_customer_name_key ON booking (customer_name_key);
+CREATE INDEX IF NOT EXISTS idx_booking_room_type_check_in ON booking (room_type, check_in_date);
+CREATE INDEX IF NOT EXISTS idx_booking_room_type_id ON booking (room_type, id);
+CREATE INDEX IF NOT EXISTS idx_booking_check_in ON booking (check_in_date);
+CREATE INDEX IF NOT EXISTS idx_booking_check_out ON booking (check_out_date);
+
+CREATE TABLE IF NOT EXISTS booking_archive (
+    id BIGINT NOT NULL,
+    customer_name VARCHAR(255),
+    room_type VARCHAR(255),
+    check_in_date TIMESTAMP(6),
+    check_out_date TIMESTAMP(6),
+    total_price REAL NOT NULL,
+    version BIGINT,
+    archived_at TIMESTAMP(6),
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_booking_archive_room_type_check_in ON booking_archive (room_type, check_in_date);
+CREATE INDEX IF NOT EXISTS idx_booking_archive_room_type_id ON booking_archive (room_type, id);
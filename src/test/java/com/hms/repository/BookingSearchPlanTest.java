@@ -0,0 +1,230 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.repository;
+
+import com.hms.model.Booking;
+import com.hms.model.BookingFilter;
+import com.hms.model.BookingPage;
+import com.hms.model.BookingSearchCriteria;
+import com.hms.model.BookingSummary;
+import com.hms.service.BookingService;
+import com.hms.utils.DateUtils;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongPredicate;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs EXPLAIN on the SQL that the booking listing and search queries generate and checks that H2 plans each
+ * filter on its index rather than walking the primary key, then walks every page of a few filtered listings.
+ */
+@SpringBootTest(properties = {
+        "hms.seed.mode=none",
+        "spring.datasource.url=jdbc:h2:mem:booking-search-plan;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=true"
+})
+@ExtendWith(OutputCaptureExtension.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class BookingSearchPlanTest {
+    private static final int ROWS = 20_000;
+    private static final int PAGE = 51;
+    private static final LocalDate FIRST_NIGHT = LocalDate.of(2031, 1, 1);
+    private static final String[] ROOM_TYPES = {"Standard", "Deluxe", "Family", "Suite"};
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void seed() {
+        List<Object[]> rows = new ArrayList<>(ROWS);
+        for (int i = 1; i <= ROWS; i++) {
+            LocalDate checkIn = FIRST_NIGHT.plusDays(i % 365);
+            rows.add(new Object[]{i, "Guest " + i, ROOM_TYPES[i % ROOM_TYPES.length],
+                    Timestamp.valueOf(checkIn.atStartOfDay()), Timestamp.valueOf(checkIn.plusDays(2).atStartOfDay())});
+        }
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO booking (id, customer_name, room_type, check_in_date, check_out_date, total_price, version)
+                VALUES (?, ?, ?, ?, ?, 100, 0)
+                """, rows);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void namePrefixSearchUsesTheNameIndex(CapturedOutput output) {
+        List<BookingSummary> rows = search(0, "guest 1999", null, null);
+
+        assertEquals(List.of(1999L, 19990L, 19991L, 19992L, 19993L, 19994L, 19995L, 19996L, 19997L, 19998L, 19999L),
+                rows.stream().map(BookingSummary::getId).toList());
+        assertPlanUses(output, "IDX_BOOKING_CUSTOMER_NAME_KEY", "guest 1999", "guest 199:", PAGE);
+    }
+
+    @Test
+    void laterSearchPagesStillUseTheNameIndex(CapturedOutput output) {
+        List<BookingSummary> rows = search(19_995, "guest 1999", null, null);
+
+        assertEquals(List.of(19996L, 19997L, 19998L, 19999L), rows.stream().map(BookingSummary::getId).toList());
+        assertPlanUses(output, "IDX_BOOKING_CUSTOMER_NAME_KEY", "guest 1999", "guest 199:", 19_995L, PAGE);
+    }
+
+    @Test
+    void checkInRangeSearchUsesTheCheckInIndex(CapturedOutput output) {
+        Date from = DateUtils.toDate(FIRST_NIGHT.plusDays(10));
+        Date before = DateUtils.toDate(FIRST_NIGHT.plusDays(11));
+        List<BookingSummary> rows = search(0, null, from, before);
+
+        assertFalse(rows.isEmpty());
+        assertTrue(rows.stream().allMatch(row -> row.getCheckInDate().getTime() == from.getTime()));
+        assertPlanUses(output, "IDX_BOOKING_CHECK_IN", from, before, PAGE);
+    }
+
+    @Test
+    void roomTypeListingReadsTheRoomTypeIndexInIdOrder(CapturedOutput output) {
+        bookingRepository.findPageAfter(0, "Suite", null, null, PageRequest.ofSize(PAGE));
+
+        assertPlanUses(output, "IDX_BOOKING_ROOM_TYPE_ID", "Suite", PAGE);
+        assertTrue(explain(output, "Suite", PAGE).contains("/* index sorted */"));
+    }
+
+    @Test
+    void laterRoomTypePagesSeekToTheCursorOnTheRoomTypeIndex(CapturedOutput output) {
+        List<Booking> rows = bookingRepository.findPageAfter(19_990, "Suite", null, null, PageRequest.ofSize(PAGE));
+
+        assertEquals(List.of(19_991L, 19_995L, 19_999L), rows.stream().map(Booking::getId).toList());
+        assertPlanUses(output, "IDX_BOOKING_ROOM_TYPE_ID", "Suite", 19_990L, PAGE);
+        String plan = explain(output, "Suite", 19_990L, PAGE);
+        String seek = plan.substring(plan.indexOf("/*"), plan.indexOf("*/")).replaceAll("\\s+", " ");
+        assertTrue(seek.contains("ROOM_TYPE = ?1 AND ID > ?2") && plan.contains("/* index sorted */"), plan);
+    }
+
+    @Test
+    void walkingARoomTypeListingVisitsEveryMatchOnceAndEndsWithoutACursor() {
+        BookingFilter filter = new BookingFilter();
+        filter.setRoomType("Suite");
+        filter.setLimit(50);
+
+        List<Long> ids = walk(filter, bookingService::getAllBookings, filter::setCursor, Booking::getId);
+
+        assertEquals(expectedIds(id -> id % ROOM_TYPES.length == 3), ids);
+    }
+
+    @Test
+    void walkingACheckInRangeEndsWithAShortLastPage() {
+        BookingFilter filter = new BookingFilter();
+        filter.setCheckInFrom(FIRST_NIGHT.plusDays(10));
+        filter.setCheckInTo(FIRST_NIGHT.plusDays(10));
+        filter.setLimit(20);
+
+        List<Long> ids = walk(filter, bookingService::getAllBookings, filter::setCursor, Booking::getId);
+
+        assertEquals(expectedIds(id -> id % 365 == 10), ids);
+        assertEquals(15, ids.size() % 20);
+    }
+
+    @Test
+    void walkingANameSearchWithARoomTypeCombinesTheFiltersAcrossPages() {
+        BookingSearchCriteria criteria = new BookingSearchCriteria();
+        criteria.setCustomerName("Guest 1");
+        criteria.setRoomType("Family");
+        criteria.setLimit(100);
+
+        List<Long> ids = walk(criteria, bookingService::searchBookings, criteria::setCursor, BookingSummary::getId);
+
+        assertEquals(expectedIds(id -> Long.toString(id).startsWith("1") && id % ROOM_TYPES.length == 2), ids);
+    }
+
+    /**
+     * Follows the cursors from the first page to the last and returns the IDs in the order they were listed.
+     */
+    private static <Q, T> List<Long> walk(Q query, Function<Q, BookingPage<T>> fetch,
+                                          Consumer<String> setCursor, Function<T, Long> idOf) {
+        List<Long> ids = new ArrayList<>();
+        BookingPage<T> page;
+        do {
+            page = fetch.apply(query);
+            page.getItems().stream().map(idOf).forEach(ids::add);
+            setCursor.accept(page.getNextCursor());
+        } while (page.getNextCursor() != null);
+        assertNull(page.getNextCursor());
+        return ids;
+    }
+
+    private static List<Long> expectedIds(LongPredicate matches) {
+        return LongStream.rangeClosed(1, ROWS).filter(matches).boxed().toList();
+    }
+
+    @Test
+    void unfilteredListingSeeksOnThePrimaryKey(CapturedOutput output) {
+        bookingRepository.findPageAfter(10_000, null, null, null, PageRequest.ofSize(PAGE));
+
+        assertPlanUses(output, "PRIMARY_KEY", 10_000L, PAGE);
+    }
+
+    private List<BookingSummary> search(long afterId, String namePrefix, Date checkInFrom, Date checkInBefore) {
+        return bookingRepository.search(afterId, namePrefix, null, checkInFrom, checkInBefore, null, null,
+                PageRequest.ofSize(PAGE));
+    }
+
+    /**
+     * Checks that the plan of the last statement logged against the booking table reads from the given index.
+     */
+    private void assertPlanUses(CapturedOutput output, String index, Object... parameters) {
+        String plan = explain(output, parameters);
+        // The index the plan reads from is named in the comment after the FROM clause
+        String access = plan.substring(plan.indexOf("/*"), plan.indexOf("*/"));
+        assertTrue(access.contains(index), () -> "Expected " + index + " in plan:\n" + plan);
+    }
+
+    /**
+     * Explains the last statement logged against the booking table, binding the given parameters in order.
+     */
+    private String explain(CapturedOutput output, Object... parameters) {
+        String sql = output.getOut().lines()
+                .filter(line -> line.startsWith("Hibernate: ") && line.contains(" from booking "))
+                .reduce((first, second) -> second)
+                .map(line -> line.substring("Hibernate: ".length()))
+                .orElseThrow(() -> new AssertionError("No booking query was logged"));
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, parameters);
+    }
+}
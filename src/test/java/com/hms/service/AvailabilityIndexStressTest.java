@@ -0,0 +1,401 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.service;
+
+import com.hms.config.InventoryProperties;
+import com.hms.exceptions.BookingConflictException;
+import com.hms.exceptions.InvalidRequestException;
+import com.hms.exceptions.ResourceNotFoundException;
+import com.hms.exceptions.TooManyRequestsException;
+import com.hms.model.Availability;
+import com.hms.model.Booking;
+import com.hms.model.BookingStay;
+import com.hms.model.InventoryHold;
+import com.hms.repository.BookingRepository;
+import com.hms.utils.DateUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Hammers a single room type of the {@link AvailabilityIndex} from many threads and checks that it is never overbooked.
+ */
+class AvailabilityIndexStressTest {
+    private static final String ROOM_TYPE = "Suite";
+    private static final int CAPACITY = 5;
+    private static final int THREADS = 32;
+    private static final LocalDate FIRST_NIGHT = LocalDate.of(2030, 1, 1);
+    private static final int WINDOW_DAYS = 30;
+
+    private InventoryProperties inventoryProperties;
+    private AvailabilityIndex availabilityIndex;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        inventoryProperties = new InventoryProperties();
+        inventoryProperties.setCapacity(Map.of(ROOM_TYPE, CAPACITY));
+        inventoryProperties.setHoldSweepInterval(Duration.ofHours(1));
+        // The repository and transactions are only needed to rebuild from the database
+        availabilityIndex = new AvailabilityIndex(null, inventoryProperties, null, new SimpleMeterRegistry());
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        availabilityIndex.shutdown();
+    }
+
+    @Test
+    void lastRoomsGoToExactlyAsManyGuestsAsThereAreRooms() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        List<Callable<Void>> guests = new ArrayList<>();
+        for (int i = 0; i < THREADS * 4; i++) {
+            guests.add(() -> {
+                start.await();
+                try {
+                    availabilityIndex.reserve(booking(FIRST_NIGHT, FIRST_NIGHT.plusDays(3)));
+                    reserved.incrementAndGet();
+                } catch (BookingConflictException exception) {
+                    conflicts.incrementAndGet();
+                }
+                return null;
+            });
+        }
+
+        List<Future<Void>> results = submitAll(guests);
+        start.countDown();
+        awaitAll(results);
+
+        assertEquals(CAPACITY, reserved.get());
+        assertEquals(THREADS * 4 - CAPACITY, conflicts.get());
+        assertEquals(CAPACITY, booked(FIRST_NIGHT, FIRST_NIGHT.plusDays(3)));
+    }
+
+    @Test
+    void overlappingStaysNeverExceedCapacityUnderChurn() throws Exception {
+        AtomicLong nextId = new AtomicLong();
+        AtomicInteger overbooked = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Callable<List<Long>>> workers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            workers.add(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                List<Long> kept = new ArrayList<>();
+                for (int iteration = 0; iteration < 2_000; iteration++) {
+                    LocalDate checkIn = FIRST_NIGHT.plusDays(random.nextInt(WINDOW_DAYS - 3));
+                    LocalDate checkOut = checkIn.plusDays(1 + random.nextInt(3));
+                    AvailabilityIndex.Reservation reservation;
+                    try {
+                        reservation = availabilityIndex.reserve(booking(checkIn, checkOut));
+                    } catch (BookingConflictException exception) {
+                        if (!kept.isEmpty()) {
+                            availabilityIndex.remove(List.of(kept.remove(random.nextInt(kept.size()))));
+                        }
+                        continue;
+                    }
+                    if (booked(checkIn, checkOut) > CAPACITY) {
+                        overbooked.incrementAndGet();
+                    }
+                    if (random.nextBoolean()) {
+                        long id = nextId.incrementAndGet();
+                        availabilityIndex.confirm(reservation, id);
+                        kept.add(id);
+                    } else {
+                        availabilityIndex.cancel(reservation);
+                    }
+                }
+                return kept;
+            });
+        }
+
+        List<Future<List<Long>>> results = submitAll(workers);
+        start.countDown();
+        List<Long> kept = new ArrayList<>();
+        for (Future<List<Long>> result : results) {
+            kept.addAll(result.get(1, TimeUnit.MINUTES));
+        }
+
+        assertEquals(0, overbooked.get());
+        for (int day = 0; day < WINDOW_DAYS; day++) {
+            LocalDate night = FIRST_NIGHT.plusDays(day);
+            assertTrue(booked(night, night.plusDays(1)) <= CAPACITY, "Overbooked on " + night);
+        }
+        availabilityIndex.remove(kept);
+        assertEquals(0, booked(FIRST_NIGHT, FIRST_NIGHT.plusDays(WINDOW_DAYS)));
+    }
+
+    @Test
+    void concurrentPatchesOfOneBookingKeepExactlyOneStay() throws Exception {
+        long bookingId = 1L;
+        availabilityIndex.confirm(availabilityIndex.reserve(booking(FIRST_NIGHT, FIRST_NIGHT.plusDays(2))), bookingId);
+        LocalDate[] current = {FIRST_NIGHT, FIRST_NIGHT.plusDays(2)};
+        AtomicInteger applied = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Callable<Void>> patches = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            patches.add(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int iteration = 0; iteration < 2_000; iteration++) {
+                    LocalDate checkIn = FIRST_NIGHT.plusDays(random.nextInt(WINDOW_DAYS - 3));
+                    LocalDate checkOut = checkIn.plusDays(1 + random.nextInt(3));
+                    AvailabilityIndex.Reservation reservation;
+                    try {
+                        // Unversioned PATCH of the dates only
+                        reservation = availabilityIndex.reserve(bookingId, null,
+                                DateUtils.toDate(checkIn), DateUtils.toDate(checkOut));
+                    } catch (BookingConflictException exception) {
+                        continue;
+                    }
+                    if (random.nextBoolean()) {
+                        // Only the claim holder gets here, so the writes to current are ordered
+                        current[0] = checkIn;
+                        current[1] = checkOut;
+                        availabilityIndex.confirm(reservation, bookingId);
+                        applied.incrementAndGet();
+                    } else {
+                        availabilityIndex.cancel(reservation);
+                    }
+                }
+                return null;
+            });
+        }
+
+        List<Future<Void>> results = submitAll(patches);
+        start.countDown();
+        awaitAll(results);
+
+        assertTrue(applied.get() > 0);
+        for (int day = 0; day < WINDOW_DAYS; day++) {
+            LocalDate night = FIRST_NIGHT.plusDays(day);
+            int expected = !night.isBefore(current[0]) && night.isBefore(current[1]) ? 1 : 0;
+            assertEquals(expected, booked(night, night.plusDays(1)), "Occupancy on " + night);
+        }
+    }
+
+    @Test
+    void holdsCompeteWithBookingsForTheSameRooms() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger granted = new AtomicInteger();
+        List<Callable<Void>> guests = new ArrayList<>();
+        for (int i = 0; i < THREADS * 4; i++) {
+            boolean holdFirst = i % 2 == 0;
+            guests.add(() -> {
+                start.await();
+                try {
+                    if (holdFirst) {
+                        InventoryHold hold = availabilityIndex.hold(ROOM_TYPE, FIRST_NIGHT, FIRST_NIGHT.plusDays(2));
+                        availabilityIndex.confirm(
+                                availabilityIndex.claim(hold.getId(), booking(FIRST_NIGHT, FIRST_NIGHT.plusDays(2))),
+                                ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE));
+                    } else {
+                        availabilityIndex.reserve(booking(FIRST_NIGHT.plusDays(1), FIRST_NIGHT.plusDays(3)));
+                    }
+                    granted.incrementAndGet();
+                } catch (BookingConflictException exception) {
+                    // Sold out
+                }
+                return null;
+            });
+        }
+
+        List<Future<Void>> results = submitAll(guests);
+        start.countDown();
+        awaitAll(results);
+
+        assertEquals(CAPACITY, granted.get());
+        assertEquals(CAPACITY, booked(FIRST_NIGHT.plusDays(1), FIRST_NIGHT.plusDays(2)));
+    }
+
+    @Test
+    void expiredHoldsGiveTheirRoomsBack() throws Exception {
+        inventoryProperties.setHoldTtl(Duration.ofMillis(50));
+        List<InventoryHold> holds = new ArrayList<>();
+        for (int i = 0; i < CAPACITY; i++) {
+            holds.add(availabilityIndex.hold(ROOM_TYPE, FIRST_NIGHT, FIRST_NIGHT.plusDays(1)));
+        }
+        assertThrows(BookingConflictException.class,
+                () -> availabilityIndex.reserve(booking(FIRST_NIGHT, FIRST_NIGHT.plusDays(1))));
+
+        Thread.sleep(100);
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> availabilityIndex.claim(holds.get(0).getId(), booking(FIRST_NIGHT, FIRST_NIGHT.plusDays(1))));
+        assertEquals(CAPACITY - 1, availabilityIndex.expireHolds());
+        assertEquals(0, booked(FIRST_NIGHT, FIRST_NIGHT.plusDays(1)));
+    }
+
+    @Test
+    void everySpellingOfARoomTypeSharesItsRooms() {
+        String[] spellings = {"Suite", "suite", "SUITE", "sUITE"};
+        for (int i = 0; i < CAPACITY - 1; i++) {
+            Booking booking = booking(FIRST_NIGHT, FIRST_NIGHT.plusDays(1));
+            booking.setRoomType(spellings[i % spellings.length]);
+            availabilityIndex.confirm(availabilityIndex.reserve(booking), i + 1L);
+        }
+        InventoryHold hold = availabilityIndex.hold("SUITE", FIRST_NIGHT, FIRST_NIGHT.plusDays(1));
+
+        Booking oneTooMany = booking(FIRST_NIGHT, FIRST_NIGHT.plusDays(1));
+        oneTooMany.setRoomType("suite");
+        assertThrows(BookingConflictException.class, () -> availabilityIndex.reserve(oneTooMany));
+        assertEquals(CAPACITY, booked(FIRST_NIGHT, FIRST_NIGHT.plusDays(1)));
+        assertEquals(Set.of(ROOM_TYPE), availabilityIndex.getRoomTypes());
+
+        // The hold was taken as SUITE and is claimed as Suite
+        availabilityIndex.confirm(availabilityIndex.claim(hold.getId(), booking(FIRST_NIGHT, FIRST_NIGHT.plusDays(1))),
+                (long) CAPACITY);
+        assertEquals(CAPACITY, booked(FIRST_NIGHT, FIRST_NIGHT.plusDays(1)));
+    }
+
+    @Test
+    void unconfiguredRoomTypesAreRejectedAndTakeNoRooms() {
+        availabilityIndex.confirm(availabilityIndex.reserve(booking(FIRST_NIGHT, FIRST_NIGHT.plusDays(1))), 1L);
+        Booking misspelled = booking(FIRST_NIGHT, FIRST_NIGHT.plusDays(1));
+        misspelled.setRoomType("Suiet");
+
+        assertThrows(InvalidRequestException.class, () -> availabilityIndex.reserve(misspelled));
+        assertThrows(InvalidRequestException.class, () -> availabilityIndex.reserve(1L, "Suiet", null, null));
+        assertThrows(InvalidRequestException.class,
+                () -> availabilityIndex.hold("Penthouse", FIRST_NIGHT, FIRST_NIGHT.plusDays(1)));
+        assertThrows(InvalidRequestException.class,
+                () -> availabilityIndex.getAvailability("Penthouse", FIRST_NIGHT, FIRST_NIGHT.plusDays(1)));
+
+        assertEquals(Set.of(ROOM_TYPE), availabilityIndex.getRoomTypes());
+        // The rejected patch left the booking unclaimed and its stay in place
+        availabilityIndex.confirm(availabilityIndex.reserve(1L, null, null, DateUtils.toDate(FIRST_NIGHT.plusDays(2))), 1L);
+        assertEquals(1, booked(FIRST_NIGHT.plusDays(1), FIRST_NIGHT.plusDays(2)));
+    }
+
+    @Test
+    void aRebuildWaitsForReservationsInFlightAndRefusesNewWrites() throws Exception {
+        Booking stored = booking(FIRST_NIGHT, FIRST_NIGHT.plusDays(3));
+        stored.setId(1L);
+        BookingRepository bookingRepository = mock(BookingRepository.class);
+        when(bookingRepository.streamStays()).thenAnswer(invocation -> Stream.of(new BookingStay(stored.getId(),
+                stored.getRoomType(), stored.getCheckInDate(), stored.getCheckOutDate(), stored.getTotalPrice(), 1L)));
+        availabilityIndex.shutdown();
+        availabilityIndex = new AvailabilityIndex(bookingRepository, inventoryProperties,
+                mock(PlatformTransactionManager.class), new SimpleMeterRegistry());
+
+        // Reserved before the rebuild, committed while it waits
+        AvailabilityIndex.Reservation inFlight = availabilityIndex.reserve(booking(FIRST_NIGHT, FIRST_NIGHT.plusDays(3)));
+        Future<?> rebuild = executor.submit(availabilityIndex::rebuild);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (true) {
+            try {
+                availabilityIndex.cancel(availabilityIndex.reserve(booking(FIRST_NIGHT, FIRST_NIGHT.plusDays(1))));
+            } catch (TooManyRequestsException exception) {
+                break;
+            }
+            assertTrue(System.nanoTime() < deadline, "the rebuild never started refusing writes");
+            Thread.sleep(1);
+        }
+        assertThrows(TooManyRequestsException.class, () -> availabilityIndex.hold(ROOM_TYPE, FIRST_NIGHT, FIRST_NIGHT.plusDays(1)));
+        assertFalse(rebuild.isDone());
+        assertEquals(1, booked(FIRST_NIGHT, FIRST_NIGHT.plusDays(3)));
+
+        availabilityIndex.confirm(inFlight, stored.getId());
+        rebuild.get(10, TimeUnit.SECONDS);
+
+        assertEquals(1, booked(FIRST_NIGHT, FIRST_NIGHT.plusDays(3)));
+        stored.setCheckInDate(DateUtils.toDate(FIRST_NIGHT.plusDays(1)));
+        availabilityIndex.confirm(availabilityIndex.reserve(stored), stored.getId());
+        assertEquals(0, booked(FIRST_NIGHT, FIRST_NIGHT.plusDays(1)));
+        assertEquals(1, booked(FIRST_NIGHT.plusDays(1), FIRST_NIGHT.plusDays(3)));
+    }
+
+    @Test
+    void writesAreRefusedWhileExcludedAndARaisedCapacityLeavesTheConfigurationAlone() {
+        Boolean refused = availabilityIndex.excludingWrites(() -> {
+            try {
+                availabilityIndex.reserve(booking(FIRST_NIGHT, FIRST_NIGHT.plusDays(1)));
+                return false;
+            } catch (TooManyRequestsException exception) {
+                return true;
+            }
+        });
+        assertTrue(refused);
+
+        availabilityIndex.raiseCapacity(ROOM_TYPE.toUpperCase(), CAPACITY + 1);
+        availabilityIndex.raiseCapacity(ROOM_TYPE, CAPACITY - 1);
+        assertEquals(CAPACITY + 1, availabilityIndex.capacityOf(ROOM_TYPE));
+        assertEquals(CAPACITY, inventoryProperties.capacityOf(ROOM_TYPE));
+        assertEquals(CAPACITY + 1,
+                availabilityIndex.getAvailability(ROOM_TYPE, FIRST_NIGHT, FIRST_NIGHT.plusDays(1)).getCapacity());
+    }
+
+    private static Booking booking(LocalDate checkIn, LocalDate checkOut) {
+        Booking booking = new Booking();
+        booking.setCustomerName("Guest");
+        booking.setRoomType(ROOM_TYPE);
+        booking.setCheckInDate(DateUtils.toDate(checkIn));
+        booking.setCheckOutDate(DateUtils.toDate(checkOut));
+        booking.setTotalPrice(100);
+        return booking;
+    }
+
+    private int booked(LocalDate checkIn, LocalDate checkOut) {
+        Availability availability = availabilityIndex.getAvailability(ROOM_TYPE, checkIn, checkOut);
+        return availability.getBooked();
+    }
+
+    private <T> List<Future<T>> submitAll(List<Callable<T>> tasks) {
+        List<Future<T>> futures = new ArrayList<>();
+        for (Callable<T> task : tasks) {
+            futures.add(executor.submit(task));
+        }
+        return futures;
+    }
+
+    private static void awaitAll(List<Future<Void>> futures) throws Exception {
+        for (Future<Void> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.service;
+
+import com.hms.model.Booking;
+import com.hms.repository.ArchivedBookingRepository;
+import com.hms.repository.BookingRepository;
+import com.hms.utils.DateUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Archival against the embedded database, with the default horizon of 90 days.
+ */
+@SpringBootTest(properties = {
+        "hms.seed.mode=none",
+        "spring.datasource.url=jdbc:h2:mem:booking-archiver;DB_CLOSE_DELAY=-1"
+})
+class BookingArchiverTest {
+    private static final String ROOM_TYPE = "Suite";
+    private static final LocalDate CHECK_IN = LocalDate.of(2020, 6, 1);
+
+    @Autowired
+    private BookingArchiver bookingArchiver;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private ArchivedBookingRepository archivedBookingRepository;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Test
+    void anArchivedBookingIsStillReadByIdAndFreesItsNights() {
+        Booking booking = bookingService.saveBooking(booking("Archived Guest", CHECK_IN));
+        // Cached before archival, so the read below has to miss the cache to find the archived copy
+        assertEquals("Archived Guest", bookingService.getBookingById(booking.getId()).getCustomerName());
+
+        assertEquals(1, bookingArchiver.archive());
+
+        assertFalse(bookingRepository.existsById(booking.getId()));
+        assertTrue(archivedBookingRepository.existsById(booking.getId()));
+        Booking archived = bookingService.getBookingById(booking.getId());
+        assertEquals("Archived Guest", archived.getCustomerName());
+        assertEquals(ROOM_TYPE, archived.getRoomType());
+        assertEquals(CHECK_IN, DateUtils.toLocalDate(archived.getCheckInDate()));
+        assertEquals(CHECK_IN.plusDays(2), DateUtils.toLocalDate(archived.getCheckOutDate()));
+        assertEquals(0, booked(CHECK_IN, CHECK_IN.plusDays(2)));
+    }
+
+    @Test
+    void archivingWaitsForAWriteInFlightSoACancelledUpdateLeavesNoStayBehind() throws Exception {
+        LocalDate checkIn = CHECK_IN.plusMonths(1);
+        Booking booking = bookingService.saveBooking(booking("Moving Guest", checkIn));
+        // An update of the dates whose write is about to fail because the booking is archived under it
+        AvailabilityIndex.Reservation inFlight = availabilityIndex.reserve(booking.getId(), null,
+                DateUtils.toDate(checkIn.plusDays(5)), DateUtils.toDate(checkIn.plusDays(7)));
+
+        CompletableFuture<Long> archived = CompletableFuture.supplyAsync(bookingArchiver::archive);
+        Thread.sleep(200);
+        assertFalse(archived.isDone(), "archival did not wait for the update in flight");
+
+        availabilityIndex.cancel(inFlight);
+
+        assertEquals(1, archived.get(10, TimeUnit.SECONDS));
+        assertEquals(0, booked(checkIn, checkIn.plusDays(7)));
+        assertEquals("Moving Guest", bookingService.getBookingById(booking.getId()).getCustomerName());
+    }
+
+    private static Booking booking(String customerName, LocalDate checkIn) {
+        Booking booking = new Booking();
+        booking.setCustomerName(customerName);
+        booking.setRoomType(ROOM_TYPE);
+        booking.setCheckInDate(DateUtils.toDate(checkIn));
+        booking.setCheckOutDate(DateUtils.toDate(checkIn.plusDays(2)));
+        booking.setTotalPrice(200);
+        return booking;
+    }
+
+    private int booked(LocalDate checkIn, LocalDate checkOut) {
+        return availabilityIndex.getAvailability(ROOM_TYPE, checkIn, checkOut).getBooked();
+    }
+}
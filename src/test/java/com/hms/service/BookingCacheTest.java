@@ -0,0 +1,66 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.service;
+
+import com.hms.model.Booking;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Write-through behaviour of the {@link BookingCache}.
+ */
+class BookingCacheTest {
+    private final BookingCache bookingCache =
+            new BookingCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(10), Duration.ofSeconds(30));
+
+    @Test
+    void slowerWriteDoesNotReplaceANewerVersion() {
+        bookingCache.put(booking(2L, "Second"));
+        bookingCache.put(booking(1L, "First"));
+
+        assertEquals("Second", cached().getCustomerName());
+    }
+
+    @Test
+    void newerVersionReplacesTheCachedOneAndACachedMiss() {
+        bookingCache.get(1L, id -> Optional.empty());
+        bookingCache.put(booking(1L, "First"));
+        bookingCache.put(booking(2L, "Second"));
+
+        assertEquals("Second", cached().getCustomerName());
+    }
+
+    private Booking cached() {
+        return bookingCache.get(1L, id -> {
+            throw new AssertionError("Booking should have been cached");
+        }).orElseThrow();
+    }
+
+    private static Booking booking(Long version, String customerName) {
+        Booking booking = new Booking();
+        booking.setId(1L);
+        booking.setVersion(version);
+        booking.setCustomerName(customerName);
+        return booking;
+    }
+}
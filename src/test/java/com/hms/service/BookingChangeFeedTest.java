@@ -0,0 +1,211 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.service;
+
+import com.hms.exceptions.TooManyRequestsException;
+import com.hms.model.Booking;
+import com.hms.model.BookingPatch;
+import com.hms.utils.ApiUrls;
+import com.hms.utils.DateUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+/**
+ * Streams the {@link BookingChangeFeed} through the controller with a ring buffer of four changes.
+ */
+@SpringBootTest(properties = {
+        "hms.seed.mode=none",
+        "spring.datasource.url=jdbc:h2:mem:booking-change-feed;DB_CLOSE_DELAY=-1",
+        "hms.feed.capacity=4",
+        "hms.feed.max-subscribers=4"
+})
+@AutoConfigureMockMvc
+class BookingChangeFeedTest {
+    private static final long TIMEOUT_MILLIS = 10_000;
+    private static final String CHANGES_URL = ApiUrls.API_URL_BOOKINGS + ApiUrls.API_URL_CHANGES;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private BookingChangeFeed bookingChangeFeed;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void aSubscriberThatFellBehindTheRingIsToldWhatItMissedAndResumesWithTheOldestChange() throws Exception {
+        long head = head();
+        for (long bookingId = 1; bookingId <= 6; bookingId++) {
+            bookingChangeFeed.onBookingChanged(BookingChangedEvent.created(booking(bookingId)));
+        }
+
+        List<String> events = awaitEvents(subscribe(head), 5);
+
+        assertTrue(events.get(0).startsWith("overflow "), events.get(0));
+        assertTrue(events.get(0).contains("\"skippedFrom\":" + head), events.get(0));
+        assertTrue(events.get(0).contains("\"resumeFrom\":" + (head + 2)), events.get(0));
+        for (int i = 1; i < 5; i++) {
+            assertTrue(events.get(i).startsWith("created " + (head + 1 + i) + " "), events.get(i));
+        }
+    }
+
+    @Test
+    void anOffsetBeyondTheHeadIsResetAndTheSubscriptionContinuesWithNewChanges() throws Exception {
+        long head = head();
+        MvcResult subscription = subscribe(head + 100);
+        awaitEvents(subscription, 1);
+
+        bookingChangeFeed.onBookingChanged(BookingChangedEvent.created(booking(1L)));
+
+        List<String> events = awaitEvents(subscription, 2);
+        assertTrue(events.get(0).startsWith("reset "), events.get(0));
+        assertTrue(events.get(0).contains("\"resumeFrom\":" + head), events.get(0));
+        assertTrue(events.get(1).startsWith("created " + head + " "), events.get(1));
+    }
+
+    @Test
+    void aPatchIsPublishedWithTheVersionItWrote() throws Exception {
+        Booking booking = bookingService.createBooking(booking(null), null).get();
+        long head = head();
+        BookingPatch patch = new BookingPatch();
+        patch.setCheckOutDate(DateUtils.toDate(LocalDate.of(2033, 5, 4)));
+
+        assertTrue(bookingService.patchBooking(booking.getId(), patch));
+
+        List<String> events = awaitEvents(subscribe(head), 1);
+        Long version = bookingService.getBookingById(booking.getId()).getVersion();
+        assertEquals(booking.getVersion() + 1, version);
+        assertTrue(events.get(0).startsWith("patched " + head + " "), events.get(0));
+        assertTrue(events.get(0).contains("\"version\":" + version), events.get(0));
+    }
+
+    @Test
+    @DirtiesContext
+    void concurrentSubscribersNeverExceedTheLimit() throws Exception {
+        int attempts = 16;
+        int free = 4 - (int) meterRegistry.get("hms.feed.subscribers").gauge().value();
+        ExecutorService executor = Executors.newFixedThreadPool(attempts);
+        try {
+            List<Callable<Boolean>> subscribers = new ArrayList<>();
+            for (int i = 0; i < attempts; i++) {
+                subscribers.add(() -> {
+                    try {
+                        bookingChangeFeed.subscribe(null);
+                        return true;
+                    } catch (TooManyRequestsException exception) {
+                        return false;
+                    }
+                });
+            }
+            int subscribed = 0;
+            for (Future<Boolean> result : executor.invokeAll(subscribers)) {
+                subscribed += result.get() ? 1 : 0;
+            }
+            assertEquals(free, subscribed);
+            assertEquals(4, meterRegistry.get("hms.feed.subscribers").gauge().value());
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private long head() {
+        return (long) meterRegistry.get("hms.feed.offset").gauge().value();
+    }
+
+    private MvcResult subscribe(long from) throws Exception {
+        return mockMvc.perform(get(CHANGES_URL).param("from", Long.toString(from)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    /**
+     * Waits for the given number of events and returns them as "name id data", with "-" for a missing ID.
+     */
+    private static List<String> awaitEvents(MvcResult subscription, int count) throws Exception {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (true) {
+            List<String> events = parse(subscription.getResponse().getContentAsString());
+            if (events.size() >= count) {
+                return events;
+            }
+            if (System.currentTimeMillis() > deadline) {
+                fail("Expected " + count + " events but received " + events);
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private static List<String> parse(String stream) {
+        List<String> events = new ArrayList<>();
+        // Only events followed by their blank line have been written completely
+        String complete = stream.substring(0, stream.lastIndexOf("\n\n") + 1);
+        for (String block : complete.split("\n\n")) {
+            String name = null;
+            String id = "-";
+            StringBuilder data = new StringBuilder();
+            for (String line : block.split("\n")) {
+                if (line.startsWith("event:")) {
+                    name = line.substring("event:".length());
+                } else if (line.startsWith("id:")) {
+                    id = line.substring("id:".length());
+                } else if (line.startsWith("data:")) {
+                    data.append(line.substring("data:".length()));
+                }
+            }
+            if (name != null) {
+                events.add(name + " " + id + " " + data);
+            }
+        }
+        return events;
+    }
+
+    private static Booking booking(Long id) {
+        Booking booking = new Booking();
+        booking.setId(id);
+        booking.setVersion(0L);
+        booking.setCustomerName("Feed");
+        booking.setRoomType("Standard");
+        booking.setCheckInDate(DateUtils.toDate(LocalDate.of(2033, 5, 1)));
+        booking.setCheckOutDate(DateUtils.toDate(LocalDate.of(2033, 5, 3)));
+        booking.setTotalPrice(200);
+        return booking;
+    }
+}
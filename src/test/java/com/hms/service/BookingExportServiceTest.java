@@ -0,0 +1,167 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hms.model.Booking;
+import com.hms.repository.BookingRepository;
+import com.hms.utils.ApiUrls;
+import com.hms.utils.DateUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Streams the {@link BookingExportService} through the controller, with admission control on and room for a single
+ * read in flight.
+ */
+@SpringBootTest(properties = {
+        "hms.seed.mode=none",
+        "spring.datasource.url=jdbc:h2:mem:booking-export;DB_CLOSE_DELAY=-1",
+        "hms.export.timeout=45m",
+        "hms.admission.enabled=true",
+        "hms.admission.reads.initial-limit=1",
+        "hms.admission.reads.min-limit=1",
+        "hms.admission.reads.max-limit=1"
+})
+@AutoConfigureMockMvc
+class BookingExportServiceTest {
+    private static final long TIMEOUT_MILLIS = 10_000;
+    private static final String EXPORT_URL = ApiUrls.API_URL_BOOKINGS + ApiUrls.API_URL_EXPORT_BOOKINGS;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void everyBookingIsStreamedAsOneJsonLine() throws Exception {
+        Booking booking = bookingService.saveBooking(booking("Streamed Guest"));
+
+        MvcResult export = mockMvc.perform(get(EXPORT_URL)).andExpect(request().asyncStarted()).andReturn();
+        export.getAsyncResult(TIMEOUT_MILLIS);
+        String body = mockMvc.perform(asyncDispatch(export))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=bookings.ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        List<String> lines = body.lines().toList();
+        assertEquals(bookingRepository.count(), lines.size());
+        Booking exported = lines.stream()
+                .map(line -> read(line))
+                .filter(candidate -> booking.getId().equals(candidate.getId()))
+                .findFirst().orElseThrow();
+        assertEquals("Streamed Guest", exported.getCustomerName());
+        assertEquals("Suite", exported.getRoomType());
+    }
+
+    @Test
+    void csvStartsWithAHeaderAndQuotesFieldsWithSeparators() throws Exception {
+        Booking booking = bookingService.saveBooking(booking("Guest, With \"Quotes\""));
+
+        MvcResult export = mockMvc.perform(get(EXPORT_URL).param("format", "csv"))
+                .andExpect(request().asyncStarted()).andReturn();
+        export.getAsyncResult(TIMEOUT_MILLIS);
+        List<String> lines = mockMvc.perform(asyncDispatch(export))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString().lines().toList();
+
+        assertEquals("id,customerName,roomType,checkInDate,checkOutDate,totalPrice", lines.get(0));
+        assertEquals(bookingRepository.count() + 1, lines.size());
+        assertTrue(lines.contains(booking.getId() + ",\"Guest, With \"\"Quotes\"\"\",Suite,"
+                + "2032-04-01 00:00:00,2032-04-03 00:00:00,300.0"), lines.toString());
+    }
+
+    @Test
+    void anExportInFlightTakesNoSlotFromAdmissionControl() throws Exception {
+        Booking booking = bookingService.saveBooking(booking("Admitted Guest"));
+
+        MvcResult export = mockMvc.perform(get(EXPORT_URL)).andExpect(request().asyncStarted()).andReturn();
+        assertEquals(0, readsInFlight());
+        // The only read slot is free, so a read made while the export is open is admitted
+        mockMvc.perform(get(ApiUrls.API_URL_BOOKINGS + "/" + booking.getId())).andExpect(status().isOk());
+
+        export.getAsyncResult(TIMEOUT_MILLIS);
+        mockMvc.perform(asyncDispatch(export)).andExpect(status().isOk());
+        assertEquals(0, meterRegistry.get("hms.admission.rejected").tag("class", "read").counter().count());
+    }
+
+    @Test
+    void onlyTheExportGetsTheLongTimeout() throws Exception {
+        MvcResult export = mockMvc.perform(get(EXPORT_URL)).andExpect(request().asyncStarted()).andReturn();
+        assertEquals(Duration.ofMinutes(45).toMillis(), export.getRequest().getAsyncContext().getTimeout());
+        export.getAsyncResult(TIMEOUT_MILLIS);
+        mockMvc.perform(asyncDispatch(export)).andExpect(status().isOk());
+
+        MvcResult create = mockMvc.perform(post(ApiUrls.API_URL_BOOKINGS)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(booking("Posted Guest"))))
+                .andExpect(request().asyncStarted()).andReturn();
+        assertNotEquals(Duration.ofMinutes(45).toMillis(), create.getRequest().getAsyncContext().getTimeout());
+        create.getAsyncResult(TIMEOUT_MILLIS);
+        mockMvc.perform(asyncDispatch(create)).andExpect(status().isOk());
+    }
+
+    private Booking read(String line) {
+        try {
+            return objectMapper.readValue(line, Booking.class);
+        } catch (Exception exception) {
+            throw new AssertionError("Not a booking: " + line, exception);
+        }
+    }
+
+    private double readsInFlight() {
+        return meterRegistry.get("hms.admission.inflight").tag("class", "read").gauge().value();
+    }
+
+    private static Booking booking(String customerName) {
+        Booking booking = new Booking();
+        booking.setCustomerName(customerName);
+        booking.setRoomType("Suite");
+        booking.setCheckInDate(DateUtils.toDate(LocalDate.of(2032, 4, 1)));
+        booking.setCheckOutDate(DateUtils.toDate(LocalDate.of(2032, 4, 3)));
+        booking.setTotalPrice(300);
+        return booking;
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.service;
+
+import com.hms.exceptions.TooManyRequestsException;
+import com.hms.model.Booking;
+import com.hms.utils.DateUtils;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestComponent;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.event.EventListener;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Behaviour of group commit: failures inside a group, a full write buffer and the drain on shutdown.
+ * The flusher thread is held up by publishing the creation of a booking named {@value #BLOCKER} until released,
+ * and a listener fails on the creation of a booking named {@value #EXPLODING}.
+ */
+@SpringBootTest(properties = {
+        "hms.seed.mode=none",
+        "spring.datasource.url=jdbc:h2:mem:booking-group-commit;DB_CLOSE_DELAY=-1",
+        "hms.bookings.group-commit.enabled=true",
+        "hms.bookings.group-commit.max-size=3",
+        "hms.bookings.group-commit.max-delay=500ms",
+        "hms.bookings.group-commit.queue-capacity=3"
+})
+@Import(BookingGroupCommitTest.FlusherGate.class)
+class BookingGroupCommitTest {
+    private static final String BLOCKER = "Blocker";
+    private static final String EXPLODING = "Exploding";
+    private static final String ROOM_TYPE = "Standard";
+    private static final long TIMEOUT_SECONDS = 10;
+
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private FlusherGate flusherGate;
+
+    /**
+     * Blocks the thread that publishes the creation of the blocker booking, which is the group-commit flusher.
+     */
+    @TestComponent
+    static class FlusherGate {
+        private volatile CountDownLatch entered = new CountDownLatch(1);
+        private volatile CountDownLatch released = new CountDownLatch(1);
+
+        void arm() {
+            entered = new CountDownLatch(1);
+            released = new CountDownLatch(1);
+        }
+
+        @EventListener
+        public void onBookingChanged(BookingChangedEvent event) throws InterruptedException {
+            if (event.booking() != null && BLOCKER.equals(event.booking().getCustomerName())) {
+                entered.countDown();
+                released.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            }
+            if (event.booking() != null && EXPLODING.equals(event.booking().getCustomerName())) {
+                throw new IllegalStateException("Listener failure");
+            }
+        }
+
+        void awaitFlusher() throws InterruptedException {
+            assertTrue(entered.await(TIMEOUT_SECONDS, TimeUnit.SECONDS), "the flusher never reached the gate");
+        }
+
+        void release() {
+            released.countDown();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        flusherGate.arm();
+    }
+
+    @Test
+    void oneBadBookingInAGroupFailsAloneWhileTheOthersCommit() throws Exception {
+        LocalDate checkIn = LocalDate.of(2032, 1, 1);
+        DistributionSummary groupSizes = meterRegistry.get("hms.bookings.group.commit.size").summary();
+        long groupsBefore = groupSizes.count();
+        double bookingsBefore = groupSizes.totalAmount();
+
+        CompletableFuture<Booking> first = bookingService.createBooking(booking("First", checkIn), null);
+        // Too long for the customer_name column, so only the insert fails
+        CompletableFuture<Booking> bad = bookingService.createBooking(booking("x".repeat(300), checkIn.plusDays(10)), null);
+        CompletableFuture<Booking> last = bookingService.createBooking(booking("Last", checkIn), null);
+
+        Long firstId = first.get(TIMEOUT_SECONDS, TimeUnit.SECONDS).getId();
+        Long lastId = last.get(TIMEOUT_SECONDS, TimeUnit.SECONDS).getId();
+        assertThrows(ExecutionException.class, () -> bad.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        assertEquals(groupsBefore + 1, groupSizes.count());
+        assertEquals(bookingsBefore + 3, groupSizes.totalAmount());
+        assertEquals("First", bookingService.getBookingById(firstId).getCustomerName());
+        assertEquals("Last", bookingService.getBookingById(lastId).getCustomerName());
+        assertEquals(2, booked(checkIn));
+        assertEquals(0, booked(checkIn.plusDays(10)));
+        assertRebuildCompletes();
+        assertEquals(2, booked(checkIn));
+    }
+
+    @Test
+    void aFailingListenerNeitherFailsTheGroupNorLeavesReservationsOpen() throws Exception {
+        LocalDate checkIn = LocalDate.of(2032, 4, 1);
+        List<CompletableFuture<Booking>> writes = List.of(
+                bookingService.createBooking(booking(EXPLODING, checkIn), null),
+                bookingService.createBooking(booking("After 1", checkIn), null),
+                bookingService.createBooking(booking("After 2", checkIn), null));
+
+        for (CompletableFuture<Booking> write : writes) {
+            Long id = write.get(TIMEOUT_SECONDS, TimeUnit.SECONDS).getId();
+            assertEquals(id, bookingService.getBookingById(id).getId());
+        }
+        assertRebuildCompletes();
+        assertEquals(3, booked(checkIn));
+    }
+
+    @Test
+    void aSubmitRefusedByAFullBufferReleasesItsRoom() throws Exception {
+        LocalDate checkIn = LocalDate.of(2032, 2, 1);
+        CompletableFuture<Booking> blocker = bookingService.createBooking(booking(BLOCKER, checkIn), null);
+        flusherGate.awaitFlusher();
+        List<CompletableFuture<Booking>> queued = List.of(
+                bookingService.createBooking(booking("Queued 1", checkIn), null),
+                bookingService.createBooking(booking("Queued 2", checkIn), null),
+                bookingService.createBooking(booking("Queued 3", checkIn), null));
+
+        assertThrows(TooManyRequestsException.class,
+                () -> bookingService.createBooking(booking("Refused", checkIn.plusDays(10)), null));
+        assertEquals(0, booked(checkIn.plusDays(10)));
+
+        flusherGate.release();
+        blocker.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        for (CompletableFuture<Booking> write : queued) {
+            write.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+        assertEquals(4, booked(checkIn));
+    }
+
+    @Test
+    @DirtiesContext
+    void shutdownWritesTheQueuedBookingsAndRefusesNewOnes() throws Exception {
+        LocalDate checkIn = LocalDate.of(2032, 3, 1);
+        CompletableFuture<Booking> blocker = bookingService.createBooking(booking(BLOCKER, checkIn), null);
+        flusherGate.awaitFlusher();
+        List<CompletableFuture<Booking>> queued = List.of(
+                bookingService.createBooking(booking("Queued 1", checkIn), null),
+                bookingService.createBooking(booking("Queued 2", checkIn), null));
+
+        Thread shutdown = new Thread(bookingService::shutdown, "booking-service-shutdown");
+        shutdown.start();
+        // The shutdown has stopped intake once it is waiting for the flusher
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (shutdown.getState() != Thread.State.TIMED_WAITING) {
+            assertTrue(System.nanoTime() < deadline, "the shutdown never started waiting for the flusher");
+            Thread.sleep(1);
+        }
+        assertThrows(TooManyRequestsException.class,
+                () -> bookingService.createBooking(booking("Refused", checkIn.plusDays(10)), null));
+        assertEquals(0, booked(checkIn.plusDays(10)));
+
+        flusherGate.release();
+        shutdown.join(TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS));
+        assertFalse(shutdown.isAlive());
+        blocker.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        for (CompletableFuture<Booking> write : queued) {
+            Long id = write.get(TIMEOUT_SECONDS, TimeUnit.SECONDS).getId();
+            assertEquals(id, bookingService.getBookingById(id).getId());
+        }
+        assertEquals(3, booked(checkIn));
+    }
+
+    /**
+     * A rebuild waits for every outstanding reservation, so it only completes if none was leaked.
+     */
+    private void assertRebuildCompletes() throws Exception {
+        CompletableFuture.runAsync(availabilityIndex::rebuild).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private int booked(LocalDate night) {
+        return availabilityIndex.getAvailability(ROOM_TYPE, night, night.plusDays(1)).getBooked();
+    }
+
+    private static Booking booking(String customerName, LocalDate checkIn) {
+        Booking booking = new Booking();
+        booking.setCustomerName(customerName);
+        booking.setRoomType(ROOM_TYPE);
+        booking.setCheckInDate(DateUtils.toDate(checkIn));
+        booking.setCheckOutDate(DateUtils.toDate(checkIn.plusDays(2)));
+        booking.setTotalPrice(200);
+        return booking;
+    }
+}
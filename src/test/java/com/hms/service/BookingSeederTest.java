@@ -0,0 +1,87 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.service;
+
+import com.hms.config.InventoryProperties;
+import com.hms.model.Availability;
+import com.hms.model.Booking;
+import com.hms.utils.DateUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Synthetic seeding against the embedded database.
+ */
+@SpringBootTest(properties = {
+        "hms.seed.mode=synthetic",
+        "hms.seed.synthetic.rows=20000",
+        "hms.seed.synthetic.start-date=2031-01-01",
+        "spring.datasource.url=jdbc:h2:mem:booking-seeder;DB_CLOSE_DELAY=-1"
+})
+class BookingSeederTest {
+    private static final LocalDate START_DATE = LocalDate.of(2031, 1, 1);
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private InventoryProperties inventoryProperties;
+
+    @Test
+    void seededRoomTypesKeepRoomsFreeOnTheirBusiestNight() throws Exception {
+        for (String roomType : new String[]{"Standard", "Deluxe", "Family", "Suite"}) {
+            LocalDate busiest = START_DATE;
+            int peak = 0;
+            for (int day = 0; day < 365; day++) {
+                LocalDate night = START_DATE.plusDays(day);
+                Availability availability = availabilityIndex.getAvailability(roomType, night, night.plusDays(1));
+                if (availability.getBooked() > peak) {
+                    busiest = night;
+                    peak = availability.getBooked();
+                }
+            }
+            assertTrue(peak > inventoryProperties.capacityOf(roomType), roomType + " peak of " + peak);
+            assertTrue(availabilityIndex.capacityOf(roomType) > peak, roomType + " capacity below its peak");
+
+            Booking booking = new Booking();
+            booking.setCustomerName("Late Guest");
+            booking.setRoomType(roomType);
+            booking.setCheckInDate(DateUtils.toDate(busiest));
+            booking.setCheckOutDate(DateUtils.toDate(busiest.plusDays(1)));
+            booking.setTotalPrice(200);
+            assertNotNull(bookingService.createBooking(booking, null).get().getId());
+        }
+    }
+
+    @Test
+    void raisingCapacitiesForTheSeedLeavesTheConfigurationAsBound() {
+        assertEquals(10, inventoryProperties.capacityOf("Suite"));
+        assertEquals(20, inventoryProperties.capacityOf("Standard"));
+        assertTrue(availabilityIndex.capacityOf("suite") > 10);
+    }
+}
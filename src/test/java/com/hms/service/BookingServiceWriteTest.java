@@ -0,0 +1,169 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.service;
+
+import com.hms.exceptions.BookingConflictException;
+import com.hms.model.BatchItemResult;
+import com.hms.model.Booking;
+import com.hms.model.BookingBatchResult;
+import com.hms.model.BookingPatch;
+import com.hms.utils.DateUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestComponent;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.event.EventListener;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Behaviour of the booking write paths against the embedded database.
+ */
+@SpringBootTest(properties = {"hms.seed.mode=none", "hms.bookings.batch.chunk-size=2"})
+@Import(BookingServiceWriteTest.PatchProbe.class)
+class BookingServiceWriteTest {
+    private static final LocalDate CHECK_IN = LocalDate.of(2031, 3, 1);
+    private static final String PROBED = "Probed";
+
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+    @Autowired
+    private PatchProbe patchProbe;
+
+    /**
+     * Tries to patch a booking named {@value #PROBED} while its update is being published, and records the outcome.
+     */
+    @TestComponent
+    static class PatchProbe {
+        @Autowired
+        private BookingService bookingService;
+        private final AtomicReference<RuntimeException> outcome = new AtomicReference<>();
+
+        @EventListener
+        public void onBookingChanged(BookingChangedEvent event) {
+            if (event.booking() == null || event.created() || !PROBED.equals(event.booking().getCustomerName())) {
+                return;
+            }
+            BookingPatch patch = new BookingPatch();
+            patch.setCustomerName("Patched meanwhile");
+            try {
+                bookingService.patchBooking(event.bookingId(), patch);
+            } catch (RuntimeException exception) {
+                outcome.set(exception);
+            }
+        }
+    }
+
+    @Test
+    void postingAnExistingIdCreatesANewBooking() throws Exception {
+        Booking original = bookingService.createBooking(booking("Original"), null).get();
+
+        Booking posted = booking("Posted");
+        posted.setId(original.getId());
+        Booking created = bookingService.createBooking(posted, null).get();
+
+        assertNotEquals(original.getId(), created.getId());
+        assertEquals("Original", bookingService.getBookingById(original.getId()).getCustomerName());
+    }
+
+    @Test
+    void aBatchRejectsInvalidItemsAndFailsOnlyTheChunkThatCannotCommit() {
+        LocalDate failedCheckIn = CHECK_IN.plusDays(30);
+        Booking invalid = booking("Invalid");
+        invalid.setCustomerName(null);
+        Booking failedAlongside = booking("Failed alongside");
+        failedAlongside.setCheckInDate(DateUtils.toDate(failedCheckIn));
+        failedAlongside.setCheckOutDate(DateUtils.toDate(failedCheckIn.plusDays(2)));
+        // Too long for the customer_name column, so its chunk fails to commit
+        Booking tooLong = booking("x".repeat(300));
+        tooLong.setCheckInDate(DateUtils.toDate(failedCheckIn));
+        tooLong.setCheckOutDate(DateUtils.toDate(failedCheckIn.plusDays(2)));
+
+        BookingBatchResult result = bookingService.saveBookings(
+                Arrays.asList(booking("Batch 1"), invalid, booking("Batch 2"), failedAlongside, tooLong));
+
+        List<BatchItemResult.Status> statuses = result.getResults().stream().map(BatchItemResult::getStatus).toList();
+        assertEquals(List.of(BatchItemResult.Status.CREATED, BatchItemResult.Status.REJECTED,
+                BatchItemResult.Status.CREATED, BatchItemResult.Status.FAILED, BatchItemResult.Status.FAILED), statuses);
+        assertEquals(2, result.getCreated());
+        assertEquals(1, result.getRejected());
+        assertEquals(2, result.getFailed());
+        assertEquals("Batch 2", bookingService.getBookingById(result.getResults().get(2).getId()).getCustomerName());
+        assertEquals(0, availabilityIndex.getAvailability("Standard", failedCheckIn, failedCheckIn.plusDays(2)).getBooked());
+    }
+
+    @Test
+    void patchingAMissingBookingIsNotFoundEvenWithAVersion() {
+        BookingPatch patch = new BookingPatch();
+        patch.setCustomerName("Nobody");
+        assertFalse(bookingService.patchBooking(Long.MAX_VALUE, patch));
+
+        patch.setVersion(0L);
+        assertFalse(bookingService.patchBooking(Long.MAX_VALUE, patch));
+    }
+
+    @Test
+    void patchingWithAStaleVersionConflictsAndTheCurrentVersionApplies() throws Exception {
+        Booking booking = bookingService.createBooking(booking("Before"), null).get();
+        BookingPatch patch = new BookingPatch();
+        patch.setCustomerName("After");
+
+        patch.setVersion(booking.getVersion() + 1);
+        assertThrows(BookingConflictException.class, () -> bookingService.patchBooking(booking.getId(), patch));
+        assertEquals("Before", bookingService.getBookingById(booking.getId()).getCustomerName());
+
+        patch.setVersion(booking.getVersion());
+        assertTrue(bookingService.patchBooking(booking.getId(), patch));
+        assertEquals("After", bookingService.getBookingById(booking.getId()).getCustomerName());
+    }
+
+    @Test
+    void anUpdateIsCachedAndPublishedBeforeOtherChangesToTheBookingMayStart() throws Exception {
+        Booking booking = bookingService.createBooking(booking("Before"), null).get();
+        Booking update = booking(PROBED);
+        update.setVersion(booking.getVersion());
+
+        Booking updated = bookingService.updateBooking(booking.getId(), update).orElseThrow();
+
+        assertTrue(patchProbe.outcome.get() instanceof BookingConflictException);
+        assertEquals(updated.getVersion(), bookingService.getBookingById(booking.getId()).getVersion());
+        assertEquals(PROBED, bookingService.getBookingById(booking.getId()).getCustomerName());
+    }
+
+    static Booking booking(String customerName) {
+        Booking booking = new Booking();
+        booking.setCustomerName(customerName);
+        booking.setRoomType("Standard");
+        booking.setCheckInDate(DateUtils.toDate(CHECK_IN));
+        booking.setCheckOutDate(DateUtils.toDate(CHECK_IN.plusDays(2)));
+        booking.setTotalPrice(200);
+        return booking;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.service;
+
+import com.hms.exceptions.TooManyRequestsException;
+import com.hms.model.Booking;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Every write handed to the {@link BookingWriteBuffer} is either written or abandoned, never left hanging.
+ */
+class BookingWriteBufferTest {
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private final Set<BookingWriteBuffer.PendingWrite> abandoned = ConcurrentHashMap.newKeySet();
+    private BookingWriteBuffer buffer;
+
+    @AfterEach
+    void tearDown() {
+        if (buffer != null) {
+            buffer.shutdown(Duration.ZERO);
+        }
+    }
+
+    @Test
+    void aWriterFailureAbandonsEveryWriteOfTheGroup() throws Exception {
+        buffer = buffer(group -> {
+            throw new IllegalStateException("Writer failure");
+        }, 2, Duration.ofSeconds(5));
+
+        CompletableFuture<Booking> first = buffer.submit(new Booking(), null);
+        CompletableFuture<Booking> second = buffer.submit(new Booking(), null);
+
+        assertFails(first);
+        assertFails(second);
+        assertEquals(2, abandoned.size());
+    }
+
+    @Test
+    void writesStillQueuedAtTheShutdownTimeoutAreAbandoned() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        buffer = buffer(group -> {
+            writing.countDown();
+            await(release);
+            group.forEach(write -> write.result().complete(write.booking()));
+        }, 1, Duration.ZERO);
+
+        CompletableFuture<Booking> inWriter = buffer.submit(new Booking(), null);
+        assertTrue(writing.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        CompletableFuture<Booking> queued = buffer.submit(new Booking(), null);
+
+        assertEquals(1, buffer.shutdown(Duration.ofMillis(50)));
+        assertFails(queued);
+        assertEquals(1, abandoned.size());
+        assertThrows(TooManyRequestsException.class, () -> buffer.submit(new Booking(), null));
+
+        release.countDown();
+        inWriter.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private BookingWriteBuffer buffer(Consumer<List<BookingWriteBuffer.PendingWrite>> writer, int maxGroupSize,
+                                      Duration maxDelay) {
+        return new BookingWriteBuffer(writer, abandoned::add, maxGroupSize, maxDelay, 10, new SimpleMeterRegistry());
+    }
+
+    private static void assertFails(CompletableFuture<Booking> write) {
+        assertThrows(ExecutionException.class, () -> write.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.service;
+
+import com.hms.config.InventoryProperties;
+import com.hms.model.Booking;
+import com.hms.model.BookingPatch;
+import com.hms.model.RoomTypeStats;
+import com.hms.utils.DateUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Applies booking changes to the {@link RevenueRollup} directly and checks the resulting figures.
+ */
+class RevenueRollupTest {
+    private static final LocalDate FIRST_NIGHT = LocalDate.of(2030, 1, 1);
+    private static final double DELTA = 1e-6;
+
+    private AvailabilityIndex availabilityIndex;
+    private RevenueRollup revenueRollup;
+
+    @BeforeEach
+    void setUp() {
+        InventoryProperties inventoryProperties = new InventoryProperties();
+        inventoryProperties.setCapacity(Map.of("Suite", 4, "Double", 10));
+        // The repositories and transactions are only needed to rebuild from the database
+        availabilityIndex = new AvailabilityIndex(null, inventoryProperties, null, new SimpleMeterRegistry());
+        revenueRollup = new RevenueRollup(null, null, inventoryProperties, availabilityIndex, null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        availabilityIndex.shutdown();
+    }
+
+    @Test
+    void aChangeAppliesTheDeltaAndReDatingMovesTheNights() {
+        revenueRollup.onBookingChanged(BookingChangedEvent.created(booking("Suite", 0, 2, 200, 0L)));
+        revenueRollup.onBookingChanged(BookingChangedEvent.created(booking(2L, "Suite", 1, 2, 50, 0L)));
+        assertNight(1, 2, 150, 0.5);
+
+        revenueRollup.onBookingChanged(BookingChangedEvent.updated(booking("Suite", 1, 4, 300, 1L)));
+
+        assertNight(0, 0, 0, 0);
+        assertNight(1, 2, 150, 0.5);
+        assertNight(3, 1, 100, 0.25);
+        assertTotals("Suite", 4, 350);
+    }
+
+    @Test
+    void aPatchMergesWithTheCurrentContribution() {
+        revenueRollup.onBookingChanged(BookingChangedEvent.created(booking("Suite", 0, 2, 200, 0L)));
+
+        BookingPatch patch = new BookingPatch();
+        patch.setRoomType("Double");
+        patch.setTotalPrice(300f);
+        revenueRollup.onBookingChanged(BookingChangedEvent.patched(1L, patch, 1L));
+
+        assertTotals("Double", 2, 300);
+        assertTotals("Suite", 0, 0);
+    }
+
+    @Test
+    void staleChangesArrivingLateAreDropped() {
+        revenueRollup.onBookingChanged(BookingChangedEvent.created(booking("Suite", 0, 2, 200, 0L)));
+        revenueRollup.onBookingChanged(BookingChangedEvent.updated(booking("Suite", 0, 3, 600, 2L)));
+
+        revenueRollup.onBookingChanged(BookingChangedEvent.updated(booking("Suite", 5, 6, 50, 1L)));
+        BookingPatch stalePatch = new BookingPatch();
+        stalePatch.setTotalPrice(10f);
+        revenueRollup.onBookingChanged(BookingChangedEvent.patched(1L, stalePatch, 2L));
+
+        assertTotals("Suite", 3, 600);
+        assertNight(5, 0, 0, 0);
+    }
+
+    @Test
+    void roomTypesAreTotalledUnderTheirConfiguredSpelling() {
+        revenueRollup.onBookingChanged(BookingChangedEvent.created(booking("suite", 0, 1, 100, 0L)));
+        revenueRollup.onBookingChanged(BookingChangedEvent.created(booking(2L, "SUITE", 0, 1, 100, 0L)));
+
+        assertEquals(1, revenueRollup.getTotals().size());
+        assertTotals("Suite", 2, 200);
+        RoomTypeStats night = revenueRollup.getDaily(night(0), "sUITE").get(0);
+        assertEquals("Suite", night.getRoomType());
+        assertEquals(2, night.getNightsSold());
+    }
+
+    private void assertNight(int day, long nightsSold, double revenue, double occupancy) {
+        RoomTypeStats night = revenueRollup.getDaily(night(day), "Suite").get(0);
+        assertEquals(nightsSold, night.getNightsSold());
+        assertEquals(revenue, night.getRevenue(), DELTA);
+        assertEquals(occupancy, night.getOccupancy(), DELTA);
+    }
+
+    private void assertTotals(String roomType, long nightsSold, double revenue) {
+        RoomTypeStats totals = revenueRollup.getTotals().stream()
+                .filter(stats -> stats.getRoomType().equals(roomType))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(nightsSold, totals.getNightsSold());
+        assertEquals(revenue, totals.getRevenue(), DELTA);
+    }
+
+    private static Booking booking(String roomType, int checkIn, int checkOut, float totalPrice, Long version) {
+        return booking(1L, roomType, checkIn, checkOut, totalPrice, version);
+    }
+
+    private static Booking booking(Long id, String roomType, int checkIn, int checkOut, float totalPrice, Long version) {
+        return new Booking(id, "Guest", roomType, DateUtils.toDate(night(checkIn)), DateUtils.toDate(night(checkOut)),
+                totalPrice, version, null);
+    }
+
+    private static LocalDate night(int day) {
+        return FIRST_NIGHT.plusDays(day);
+    }
+}
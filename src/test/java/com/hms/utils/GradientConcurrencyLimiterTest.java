@@ -0,0 +1,110 @@
+/*
+ * Copyright 2024 the original author.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hms.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives a {@link GradientConcurrencyLimiter} through whole sample windows with chosen round-trip times.
+ * Smoothing is off, and a window closes as soon as it holds the given number of samples.
+ */
+class GradientConcurrencyLimiterTest {
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(20);
+
+    @Test
+    void callsBeyondTheLimitAreRefusedUntilASlotIsReleased() {
+        GradientConcurrencyLimiter limiter = limiter(2, 1, 10, 100);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(2, limiter.getInFlight());
+
+        limiter.releaseWithoutSample();
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void theLimitGrowsByItsSquareRootWhileLatencyStaysFlat() {
+        GradientConcurrencyLimiter limiter = limiter(16, 1, 100, 16);
+
+        fullWindow(limiter, FAST);
+        assertEquals(FAST, limiter.getBaselineRttNanos(), 1);
+        assertEquals(20, limiter.getLimit());
+    }
+
+    @Test
+    void theLimitBacksOffByAtMostHalfWhenLatencyRises() {
+        GradientConcurrencyLimiter limiter = limiter(16, 1, 100, 16);
+        fullWindow(limiter, FAST);
+        int before = limiter.getLimit();
+
+        fullWindow(limiter, SLOW);
+
+        assertTrue(limiter.getLimit() < before, () -> "Limit did not shrink from " + before);
+        assertTrue(limiter.getLimit() >= before / 2, () -> "Limit fell below half of " + before);
+    }
+
+    @Test
+    void theLimitStaysWithinItsFloorAndCeiling() {
+        GradientConcurrencyLimiter limiter = limiter(16, 8, 24, 16);
+        for (int i = 0; i < 10; i++) {
+            fullWindow(limiter, FAST);
+        }
+        assertEquals(24, limiter.getLimit());
+
+        for (int i = 0; i < 10; i++) {
+            fullWindow(limiter, SLOW * (i + 2));
+        }
+        assertEquals(8, limiter.getLimit());
+    }
+
+    @Test
+    void theLimitDoesNotGrowWhileMostOfItIsUnused() {
+        GradientConcurrencyLimiter limiter = limiter(16, 1, 100, 4);
+        for (int i = 0; i < 20; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(FAST);
+        }
+        assertEquals(16, limiter.getLimit());
+    }
+
+    private static GradientConcurrencyLimiter limiter(int initialLimit, int minLimit, int maxLimit, int windowSamples) {
+        return new GradientConcurrencyLimiter(initialLimit, minLimit, maxLimit, 1.5, 1.0, 0, windowSamples);
+    }
+
+    /**
+     * Fills the limit with concurrent calls that all complete with the given round-trip time.
+     */
+    private static void fullWindow(GradientConcurrencyLimiter limiter, long rttNanos) {
+        int calls = limiter.getLimit();
+        for (int i = 0; i < calls; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        for (int i = 0; i < calls; i++) {
+            limiter.release(rttNanos);
+        }
+    }
+}